@@ -0,0 +1,194 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Resolves which abstract root methods the non-abstract methods of a class or its supertypes implement.
+ * <p>
+ * Conceptually the supertypes of a class are visited breadth first, starting at the class itself, superclass before
+ * interfaces. The owner of an abstract root is the last class declaring it in that order, and its implementation is
+ * the first non-abstract method with the same name and descriptor.
+ * <p>
+ * Instead of walking all supertypes again for every class, both are derived from the results of the direct
+ * supertypes: a supertype comes earlier in the breadth first order of a class exactly if it is closer to the class,
+ * or equally close but reached through an earlier direct supertype, or reached through the same direct supertype
+ * and earlier in its order. This is safe to use from multiple threads.
+ */
+class AbstractMethodResolver {
+    private static final Implementer NO_IMPLEMENTER = new Implementer(null, -1);
+
+    private final InheritanceGraph graph;
+    private final OverrideResolver overrideResolver;
+    private final AtomicReferenceArray<LongObjectMap<List<Root>>> roots;
+    private final MethodCache<Implementer> implementers;
+
+    AbstractMethodResolver(final InheritanceGraph graph, final OverrideResolver overrideResolver) {
+        this.graph = graph;
+        this.overrideResolver = overrideResolver;
+        this.roots = new AtomicReferenceArray<>(graph.size());
+        this.implementers = new MethodCache<>(graph.size());
+    }
+
+    /**
+     * Finds the abstract root methods the non-abstract methods of the given class or its supertypes implement.
+     *
+     * @param cls The class.
+     * @return The implementations, one for each implemented abstract root.
+     */
+    List<Implementation> findImplementations(final MutableClassInfo cls) {
+        final int id = graph.getId(cls.getName());
+        final LongObjectMap<List<Root>> inheritedRoots = id < 0 ? null : getRoots(id);
+        if (inheritedRoots == null || inheritedRoots.isEmpty())
+            return Collections.emptyList();
+
+        final List<Implementation> implementations = new ArrayList<>();
+        inheritedRoots.forEach((key, owners) -> {
+            final Implementer implementer = getImplementer(id, key);
+            if (implementer == NO_IMPLEMENTER)
+                return;
+
+            final MutableMethodInfo mtd = implementer.method;
+            implementations.add(new Implementation(mtd, new MutableMethodReferenceInfo(
+                    owners.get(owners.size() - 1).owner,
+                    mtd.getMethod().getName(),
+                    mtd.getMethod().getDesc(),
+                    mtd.getSignature()
+            )));
+        });
+        return implementations;
+    }
+
+    /**
+     * The abstract roots declared by a class or its supertypes, with every class declaring them in breadth first order.
+     */
+    private LongObjectMap<List<Root>> getRoots(final int id) {
+        graph.walkSuperTypesFirst(id, superType -> roots.get(superType) != null, this::computeRoots);
+        return roots.get(id);
+    }
+
+    private void computeRoots(final int id) {
+        final MutableClassInfo info = graph.getClassInfo(id);
+        //Collect every declaring class with the position it is first reached at, then bring them in order.
+        final LongObjectMap<Map<String, Root>> candidates = new LongObjectMap<>();
+        for (MutableMethodInfo method : info.getMethods().values()) {
+            if (method.isAbstract() && !overrideResolver.overridesAnything(method)) {
+                final Map<String, Root> owners = new LinkedHashMap<>();
+                owners.put(info.getName(), new Root(info.getName(), 0, -1, 0));
+                candidates.put(method.getKey(), owners);
+            }
+        }
+
+        for (int i = 0; i < graph.getSuperTypeCount(id); i++) {
+            final LongObjectMap<List<Root>> superRoots = roots.get(graph.getSuperType(id, i));
+            //Only missing for a supertype in a circular hierarchy, which is still being walked.
+            if (superRoots == null)
+                continue;
+
+            final int superTypeIndex = i;
+            superRoots.forEach((key, superOwners) -> {
+                Map<String, Root> owners = candidates.get(key);
+                if (owners == null) {
+                    owners = new LinkedHashMap<>();
+                    candidates.put(key, owners);
+                }
+
+                for (int position = 0; position < superOwners.size(); position++) {
+                    final Root superOwner = superOwners.get(position);
+                    final Root existing = owners.get(superOwner.owner);
+                    if (existing == null || superOwner.distance + 1 < existing.distance)
+                        owners.put(superOwner.owner, new Root(superOwner.owner, superOwner.distance + 1, superTypeIndex, position));
+                }
+            });
+        }
+
+        final LongObjectMap<List<Root>> result = new LongObjectMap<>(candidates.size());
+        candidates.forEach((key, owners) -> {
+            final List<Root> ordered = new ArrayList<>(owners.values());
+            if (ordered.size() > 1)
+                ordered.sort(Root.ORDER);
+            result.put(key, ordered);
+        });
+
+        roots.compareAndSet(id, null, result);
+    }
+
+    /**
+     * The first non-abstract method with the given key in the breadth first order of a class.
+     */
+    private Implementer getImplementer(final int id, final long key) {
+        graph.walkSuperTypesFirst(id, superType -> getKnownImplementer(superType, key) != null, superType -> computeImplementer(superType, key));
+        return implementers.get(id, key);
+    }
+
+    /**
+     * The implementer of a class if it is already known, which it always is if the class declares it itself.
+     */
+    private Implementer getKnownImplementer(final int id, final long key) {
+        final Implementer cached = implementers.get(id, key);
+        if (cached != null)
+            return cached;
+
+        final MutableMethodInfo method = graph.getClassInfo(id).getMethod(key);
+        return method != null && !method.isAbstract() ? implementers.put(id, key, new Implementer(method, 0)) : null;
+    }
+
+    private void computeImplementer(final int id, final long key) {
+        Implementer result = NO_IMPLEMENTER;
+        for (int i = 0; i < graph.getSuperTypeCount(id); i++) {
+            //Only missing for a supertype in a circular hierarchy, which is still being walked.
+            final Implementer superImplementer = implementers.get(graph.getSuperType(id, i), key);
+            if (superImplementer != null && superImplementer != NO_IMPLEMENTER
+                    && (result == NO_IMPLEMENTER || superImplementer.distance + 1 < result.distance))
+                result = new Implementer(superImplementer.method, superImplementer.distance + 1);
+        }
+
+        implementers.put(id, key, result);
+    }
+
+    /**
+     * A non-abstract method implementing an abstract root, and the reference to add to its overrides.
+     */
+    static final class Implementation {
+        final MutableMethodInfo method;
+        final MutableMethodReferenceInfo target;
+
+        private Implementation(final MutableMethodInfo method, final MutableMethodReferenceInfo target) {
+            this.method = method;
+            this.target = target;
+        }
+    }
+
+    private static final class Root {
+        private static final Comparator<Root> ORDER = Comparator.<Root>comparingInt(root -> root.distance)
+                .thenComparingInt(root -> root.superTypeIndex)
+                .thenComparingInt(root -> root.position);
+
+        private final String owner;
+        private final int distance;
+        private final int superTypeIndex;
+        private final int position;
+
+        private Root(final String owner, final int distance, final int superTypeIndex, final int position) {
+            this.owner = owner;
+            this.distance = distance;
+            this.superTypeIndex = superTypeIndex;
+            this.position = position;
+        }
+    }
+
+    private static final class Implementer {
+        private final MutableMethodInfo method;
+        private final int distance;
+
+        private Implementer(final MutableMethodInfo method, final int distance) {
+            this.method = method;
+            this.distance = distance;
+        }
+    }
+}
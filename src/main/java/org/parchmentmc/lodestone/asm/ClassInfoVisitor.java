@@ -0,0 +1,353 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a {@link MutableClassInfo} in a single pass over a class file, without materializing a tree of it.
+ * <p>
+ * Lambda targets, bouncer targets and record getters are detected while the instructions stream by. The
+ * instructions are treated exactly as they would appear in an ASM instruction list, so labels, line numbers and
+ * frames count as instructions for the heuristics below.
+ */
+class ClassInfoVisitor extends ClassVisitor {
+    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory",
+            "metafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+            false);
+    private static final Handle LAMBDA_ALTMETAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory",
+            "altMetafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;",
+            false);
+
+    private final SymbolTable symbols;
+    private MutableClassInfo classInfo;
+    private final Set<String> lambdas = new HashSet<>();
+    private final List<MethodAnalyzer> methods = new ArrayList<>();
+
+    ClassInfoVisitor(final SymbolTable symbols) {
+        super(Opcodes.ASM9);
+        this.symbols = symbols;
+    }
+
+    MutableClassInfo getClassInfo() {
+        return classInfo;
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+        this.classInfo = new MutableClassInfo(symbols, name, superName, interfaces == null ? null : Arrays.asList(interfaces), access, signature);
+    }
+
+    @Override
+    public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
+        classInfo.addField(new MutableFieldInfo(classInfo, name, descriptor, access, signature));
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+        final MethodAnalyzer analyzer = new MethodAnalyzer(access, name, descriptor, signature);
+        methods.add(analyzer);
+        return analyzer;
+    }
+
+    @Override
+    public void visitEnd() {
+        //Lambdas are only known once every method has been seen, so only now can the methods be built.
+        for (MethodAnalyzer analyzer : methods) {
+            final boolean lambda = lambdas.contains(classInfo.getName() + '/' + analyzer.name + analyzer.desc);
+            final MutableMethodInfo method = new MutableMethodInfo(classInfo, analyzer.name, analyzer.desc, analyzer.access, analyzer.signature,
+                    lambda, lambda ? null : analyzer.getBouncerTarget());
+            classInfo.addMethod(method);
+
+            //Required to link record fields.
+            if (analyzer.getterField != null) {
+                final MutableFieldInfo returnedFieldInfo = classInfo.getFields().get(analyzer.getterField);
+                if (returnedFieldInfo != null) {
+                    returnedFieldInfo.getGetters().add(method.getMethod());
+                }
+            }
+        }
+    }
+
+    private static Handle getLambdaTarget(final Handle bsm, final Object[] bsmArgs) {
+        if (LAMBDA_METAFACTORY.equals(bsm) && bsmArgs != null && bsmArgs.length == 3 && bsmArgs[1] instanceof Handle) {
+            return ((Handle) bsmArgs[1]);
+        }
+        if (LAMBDA_ALTMETAFACTORY.equals(bsm) && bsmArgs != null && bsmArgs.length == 5 && bsmArgs[1] instanceof Handle) {
+            return ((Handle) bsmArgs[1]);
+        }
+        return null;
+    }
+
+    private static boolean isReturn(final int opcode) {
+        return opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN;
+    }
+
+    /**
+     * Looks for the bouncer and getter patterns in a single method.
+     * <p>
+     * A bouncer is a synthetic instance method which loads {@code this}, loads its arguments in order (optionally
+     * casting them), calls a method of the same class and returns. A getter is a record instance method which loads
+     * {@code this}, reads a field of the same class and then returns or jumps.
+     */
+    private class MethodAnalyzer extends MethodVisitor {
+        private static final int LABEL = 0;
+        private static final int LINE = 1;
+        private static final int VAR = 2;
+        private static final int FIELD = 3;
+        private static final int METHOD = 4;
+        private static final int JUMP = 5;
+        private static final int OTHER = 6;
+
+        private static final int FAILED = -1;
+        private static final int PENDING = 0;
+        private static final int WALK = 1;
+        private static final int END = 2;
+        private static final int END_RETURN = 3;
+        private static final int END_LABEL = 4;
+        private static final int GETTER_FIELD = 1;
+        private static final int GETTER_RETURN = 2;
+        private static final int GETTER_DONE = 3;
+
+        private final int access;
+        private final String name;
+        private final String desc;
+        private final String signature;
+
+        private int instructionIndex = 0;
+        private boolean skipLineNumber = false;
+
+        private int bouncerState;
+        private Type[] args;
+        private int var = 1;
+        private int index = 0;
+        private String targetOwner;
+        private String targetName;
+        private String targetDesc;
+
+        private int getterState;
+        private String getterField;
+
+        MethodAnalyzer(final int access, final String name, final String desc, final String signature) {
+            super(Opcodes.ASM9);
+            this.access = access;
+            this.name = name;
+            this.desc = desc;
+            this.signature = signature;
+
+            final boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
+            this.bouncerState = !isStatic && (access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0 ? PENDING : FAILED;
+            this.getterState = classInfo.isRecord() && !isStatic && desc.contains("()") ? PENDING : FAILED;
+        }
+
+        MutableMethodReferenceInfo getBouncerTarget() {
+            if (bouncerState < END || !targetOwner.equals(classInfo.getName())
+                    || Type.getArgumentsAndReturnSizes(desc) != Type.getArgumentsAndReturnSizes(targetDesc))
+                return null;
+
+            return new MutableMethodReferenceInfo(targetOwner, targetName, targetDesc, null);
+        }
+
+        private void instruction(final int kind, final int opcode, final int operand, final String owner, final String name, final String desc) {
+            final int current = instructionIndex++;
+            if (bouncerState == FAILED && getterState == FAILED)
+                return;
+
+            //The first instruction is skipped if it is a label followed by a line number, together with that line number.
+            if (current == 0) {
+                if (kind == LABEL) {
+                    skipLineNumber = true;
+                } else {
+                    start(kind, opcode, operand);
+                }
+                return;
+            }
+            if (skipLineNumber && current == 1) {
+                if (kind != LINE) {
+                    //Not followed by a line number, so the label itself is the first instruction.
+                    start(LABEL, -1, -1);
+                }
+                return;
+            }
+            if (skipLineNumber && current == 2) {
+                start(kind, opcode, operand);
+                return;
+            }
+
+            nextBouncerInstruction(kind, opcode, operand, owner, name, desc);
+            nextGetterInstruction(kind, opcode, owner, name);
+        }
+
+        private void start(final int kind, final int opcode, final int operand) {
+            if (bouncerState != PENDING && getterState != PENDING)
+                return;
+
+            final boolean loadsThis = kind == VAR && operand == 0 && opcode == Opcodes.ALOAD;
+            if (bouncerState == PENDING) {
+                bouncerState = loadsThis ? WALK : FAILED;
+                if (loadsThis)
+                    args = Type.getArgumentTypes(this.desc);
+            }
+            if (getterState == PENDING)
+                getterState = loadsThis ? GETTER_FIELD : FAILED;
+        }
+
+        private void nextBouncerInstruction(final int kind, final int opcode, final int operand, final String owner, final String name, final String desc) {
+            switch (bouncerState) {
+                case WALK:
+                    if (kind == METHOD) {
+                        //Possibly the bouncing call, as long as only a return and a label follow it.
+                        targetOwner = owner;
+                        targetName = name;
+                        targetDesc = desc;
+                        bouncerState = END;
+                    } else if (kind == VAR) {
+                        if (operand != var || index + 1 > args.length) {
+                            //Arguments are switched around, so seems like lambda!
+                            bouncerState = FAILED;
+                        } else {
+                            var += args[index++].getSize();
+                        }
+                    } else if (opcode != Opcodes.INSTANCEOF && opcode != Opcodes.CHECKCAST) {
+                        // Anything else is invalid in a bouncer {As far as I know}, so we're most likely a lambda
+                        bouncerState = FAILED;
+                    }
+                    break;
+                case END:
+                    bouncerState = isReturn(opcode) ? END_RETURN : kind == LABEL ? END_LABEL : FAILED;
+                    break;
+                case END_RETURN:
+                    bouncerState = kind == LABEL ? END_LABEL : FAILED;
+                    break;
+                case END_LABEL:
+                    bouncerState = FAILED;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void nextGetterInstruction(final int kind, final int opcode, final String owner, final String name) {
+            switch (getterState) {
+                case GETTER_FIELD:
+                    if (kind == FIELD && owner.equals(classInfo.getName())) {
+                        getterField = name;
+                        getterState = GETTER_RETURN;
+                    } else {
+                        getterState = FAILED;
+                    }
+                    break;
+                case GETTER_RETURN:
+                    if (kind == JUMP || isReturn(opcode)) {
+                        getterState = GETTER_DONE;
+                    } else {
+                        getterField = null;
+                        getterState = FAILED;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void visitLabel(final Label label) {
+            instruction(LABEL, -1, -1, null, null, null);
+        }
+
+        @Override
+        public void visitLineNumber(final int line, final Label start) {
+            instruction(LINE, -1, -1, null, null, null);
+        }
+
+        @Override
+        public void visitFrame(final int type, final int numLocal, final Object[] local, final int numStack, final Object[] stack) {
+            instruction(OTHER, -1, -1, null, null, null);
+        }
+
+        @Override
+        public void visitInsn(final int opcode) {
+            instruction(OTHER, opcode, -1, null, null, null);
+        }
+
+        @Override
+        public void visitIntInsn(final int opcode, final int operand) {
+            instruction(OTHER, opcode, -1, null, null, null);
+        }
+
+        @Override
+        public void visitVarInsn(final int opcode, final int varIndex) {
+            instruction(VAR, opcode, varIndex, null, null, null);
+        }
+
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+            instruction(OTHER, opcode, -1, null, null, null);
+        }
+
+        @Override
+        public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            instruction(FIELD, opcode, -1, owner, name, descriptor);
+        }
+
+        @Override
+        public void visitMethodInsn(final int opcode, final String owner, final String name, final String descriptor, final boolean isInterface) {
+            instruction(METHOD, opcode, -1, owner, name, descriptor);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(final String name, final String descriptor, final Handle bootstrapMethodHandle, final Object... bootstrapMethodArguments) {
+            //Gather Lambda methods so we can skip them in bouncers?
+            final Handle target = getLambdaTarget(bootstrapMethodHandle, bootstrapMethodArguments);
+            if (target != null) {
+                lambdas.add(target.getOwner() + '/' + target.getName() + target.getDesc());
+            }
+            instruction(OTHER, Opcodes.INVOKEDYNAMIC, -1, null, null, null);
+        }
+
+        @Override
+        public void visitJumpInsn(final int opcode, final Label label) {
+            instruction(JUMP, opcode, -1, null, null, null);
+        }
+
+        @Override
+        public void visitLdcInsn(final Object value) {
+            instruction(OTHER, Opcodes.LDC, -1, null, null, null);
+        }
+
+        @Override
+        public void visitIincInsn(final int varIndex, final int increment) {
+            instruction(OTHER, Opcodes.IINC, -1, null, null, null);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(final int min, final int max, final Label dflt, final Label... labels) {
+            instruction(OTHER, Opcodes.TABLESWITCH, -1, null, null, null);
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] labels) {
+            instruction(OTHER, Opcodes.LOOKUPSWITCH, -1, null, null, null);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+            instruction(OTHER, Opcodes.MULTIANEWARRAY, -1, null, null, null);
+        }
+    }
+}
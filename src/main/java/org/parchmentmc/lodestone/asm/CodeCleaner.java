@@ -1,310 +1,149 @@
 package org.parchmentmc.lodestone.asm;
 
-import org.objectweb.asm.Opcodes;
-
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.function.Consumer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
 
 public class CodeCleaner {
 
-    private final CodeTree codeTree;
-
+    private final InheritanceGraph graph;
+    private final OverrideResolver overrideResolver;
+    private final AbstractMethodResolver abstractMethodResolver;
+    private final AtomicReferenceArray<List<AbstractMethodResolver.Implementation>> preparedClasses;
+
+    /**
+     * Creates a new cleaner for the game classes of the given code tree, building its inheritance graph.
+     * All jars need to be loaded at this point.
+     *
+     * @param codeTree The code tree.
+     */
     public CodeCleaner(final CodeTree codeTree) {
-        this.codeTree = codeTree;
+        this.graph = codeTree.getInheritanceGraph();
+        this.overrideResolver = new OverrideResolver(graph);
+        this.abstractMethodResolver = new AbstractMethodResolver(graph, overrideResolver);
+        this.preparedClasses = new AtomicReferenceArray<>(graph.size());
     }
 
+    /**
+     * Cleans a class and all its supertypes.
+     * Classes which are not part of the inheritance graph of the code tree, being neither a game class nor a supertype
+     * of one, are ignored.
+     *
+     * @param classMetadata The class to clean.
+     */
     public void cleanClass(final MutableClassInfo classMetadata) {
-        doCleanClass(
-                classMetadata.getName()
-        );
+        final int id = graph.getId(classMetadata.getName());
+        if (id >= 0)
+            doCleanClass(id);
     }
 
-    private void doCleanClass(final String className) {
-        MutableClassInfo info = codeTree.getClassMetadataFor(className);
-        if (info == null || info.isResolved())
-            return;
+    /**
+     * Cleans all the given classes, in the given order.
+     * <p>
+     * Everything which only depends on the hierarchy itself is prepared in parallel first, going through the levels
+     * of the inheritance graph from the top down so a class is only prepared once all of its supertypes are. The
+     * overrides of a method however depend on the order in which the classes are cleaned, so those are still resolved
+     * one class at a time, giving exactly the same result as cleaning each class on its own.
+     *
+     * @param classes The classes to clean.
+     */
+    public void cleanClasses(final Collection<MutableClassInfo> classes) {
+        for (int level = 0; level < graph.getLevelCount(); level++) {
+            IntStream.range(graph.getLevelStart(level), graph.getLevelEnd(level)).parallel().forEach(this::prepareClass);
+        }
+
+        classes.forEach(this::cleanClass);
+    }
+
+    /**
+     * Resolves everything of a class which does not depend on the order in which classes are cleaned: the parents of
+     * its methods, the getters of its record components and which abstract methods it implements.
+     * This is safe to call from multiple threads for different classes.
+     */
+    private List<AbstractMethodResolver.Implementation> prepareClass(final int id) {
+        List<AbstractMethodResolver.Implementation> implementations = preparedClasses.get(id);
+        if (implementations != null)
+            return implementations;
 
-        if (info.getSuperName() != null)
-            doCleanClass(info.getSuperName());
+        final MutableClassInfo info = graph.getClassInfo(id);
+        for (MutableMethodInfo method : info.getMethods().values()) {
+            method.setParent(overrideResolver.findParent(method));
+        }
 
-        if (info.getInterfaces() != null && !info.getInterfaces().isEmpty())
-            for (String interfaceClassName : info.getInterfaces())
-                doCleanClass(interfaceClassName);
+        resolveRecord(info);
+
+        implementations = info.isAbstract() ? Collections.emptyList() : abstractMethodResolver.findImplementations(info);
+        preparedClasses.set(id, implementations);
+        return implementations;
+    }
+
+    private void doCleanClass(final int id) {
+        graph.walkSuperTypesFirst(id, superType -> graph.getClassInfo(superType).isResolved(), this::resolveClass);
+    }
 
+    /**
+     * Resolves a class whose supertypes are all resolved.
+     */
+    private void resolveClass(final int id) {
+        MutableClassInfo info = graph.getClassInfo(id);
         if (info.getMethods() != null && !info.getMethods().isEmpty()) {
             //Synthetic Bouncers!
             for (MutableMethodInfo method : info.getMethods().values()) {
                 if (method.getBouncer() != null) {
-                    MutableMethodReferenceInfo owner = doWalkBouncers(method, info.getName());
-                    if (owner != null && !owner.getOwner().equals(info.getName()))
+                    MutableMethodReferenceInfo owner = resolveBouncerOwner(method);
+                    if (!owner.getOwner().equals(info.getName()))
                         method.getBouncer().setOwner(owner);
                 }
             }
 
             //Resolve the 'root' owner of each method.
             for (MutableMethodInfo method : info.getMethods().values()) {
-                method.setOverrides(findOverrides(method, info.getName()));
-                method.setParent(doFindFirstOverride(method, info.getName()));
+                method.setOverrides(overrideResolver.findOverrides(method));
             }
         }
 
-        if (!info.isAbstract()) {
-            resolveAbstract(info);
-        }
-
-        resolveRecord(info);
+        resolveAbstract(prepareClass(id));
+        preparedClasses.set(id, null);
 
         info.setResolved(true);
     }
 
-    private MutableMethodReferenceInfo doWalkBouncers(final MutableMethodInfo methodMetadata, String className) {
-        final MutableClassInfo classMetadata = codeTree.getClassMetadataFor(className);
-        if (!classMetadata.getMethods().isEmpty()) {
-            MutableMethodInfo ownerMethodMetadata = classMetadata.getMethods().get(methodMetadata.getMethod().getName() + methodMetadata.getMethod().getDesc());
-
-            if (ownerMethodMetadata != null && (
-                    (!ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()) ||
-                            //We ignore all final or private methods, they can not be overridden so no bouncer.
-                            classMetadata.getName()
-                                    .equals(methodMetadata.getMethod().getOwner()) //We always execute this branch if the current method is owned by the current class (first level recursion).
-            )) {
-                if (ownerMethodMetadata.getBouncer() != null) {
-                    final Set<MutableMethodReferenceInfo> overrides = findOverrides(
-                            ownerMethodMetadata,
-                            classMetadata.getName()
-                    );
-                    if (overrides.isEmpty()) {
-                        return new MutableMethodReferenceInfo(
-                                classMetadata.getName(),
-                                ownerMethodMetadata.getMethod().getName(),
-                                ownerMethodMetadata.getMethod().getDesc(),
-                                ownerMethodMetadata.getSignature()
-                        );
-                    } else {
-                        return overrides.iterator().next();
-                        //We pick the first regardless of how many there are in there.
-                        //Most likely it is the one from the super class, but it is actually not that relevant.
-                    }
-                }
-
-                for (final MutableMethodInfo ownerMethod : classMetadata.getMethods().values()) {
-                    final MutableMethodReferenceInfo target = ownerMethod.getBouncer() != null ? ownerMethod.getBouncer().getTarget() : null;
-                    if (
-                            target != null &&
-                                    ownerMethodMetadata.getMethod().getName().equals(target.getName()) &&
-                                    ownerMethodMetadata.getMethod().getDesc().equals(target.getDesc())
-                    ) {
-                        if (ownerMethod.getBouncer().getOwner() != null) {
-                            return ownerMethod.getBouncer().getOwner();
-                        }
-
-                        final MutableMethodReferenceInfo newBouncerOwner = doWalkBouncers(
-                                ownerMethod,
-                                classMetadata.getName()
-                        );
-
-                        if (newBouncerOwner != null && !newBouncerOwner.getOwner().equals(classMetadata.getName())) {
-                            ownerMethod.getBouncer().setOwner(newBouncerOwner);
-                            return newBouncerOwner;
-                        }
-                    }
-                }
-            }
-        }
-
-        if (classMetadata.getSuperName() != null) {
-            MutableMethodReferenceInfo ret = doWalkBouncers(methodMetadata, classMetadata.getSuperName());
-            if (ret != null)
-                return ret;
-        }
-
-        if (classMetadata.getInterfaces() != null && !classMetadata.getInterfaces().isEmpty()) {
-            for (String interfaceName : classMetadata.getInterfaces()) {
-                MutableMethodReferenceInfo ret = doWalkBouncers(methodMetadata, interfaceName);
-                if (ret != null)
-                    return ret;
-            }
-        }
-
-        return null;
-    }
-
-    private Set<MutableMethodReferenceInfo> findOverrides(MutableMethodInfo methodMetadata, String ownerName) {
-        return doFindOverrides(methodMetadata, ownerName, new LinkedHashSet<>());
-    }
-
-    private Set<MutableMethodReferenceInfo> doFindOverrides(MutableMethodInfo methodMetadata, String className, Set<MutableMethodReferenceInfo> overrides) {
-        if (methodMetadata.isStatic() || methodMetadata.isPrivate() || methodMetadata.getMethod().getName().startsWith("<")) {
-            return overrides;
-        }
-
-        final MutableClassInfo classMetadata = codeTree.getClassMetadataFor(className);
-        if (classMetadata == null) {
-            return overrides;
-        }
-
-        if (classMetadata.getMethods() != null && !classMetadata.getMethods().isEmpty()) {
-            for (MutableMethodInfo ownerMethodMetadata : classMetadata.getMethods().values()) {
-                final MutableMethodReferenceInfo target = ownerMethodMetadata.getBouncer() != null ? ownerMethodMetadata.getBouncer().getTarget() : null;
-                if (target != null &&
-                        methodMetadata.getMethod().getName().equals(target.getName()) &&
-                        methodMetadata.getMethod().getDesc().equals(target.getDesc())) {
-                    doFindOverrides(ownerMethodMetadata, classMetadata.getName(), overrides);
-                }
-            }
-
-            MutableMethodInfo ownerMethodMetadata = classMetadata.getMethods().get(methodMetadata.getMethod().getName() + methodMetadata.getMethod().getDesc());
-            if (ownerMethodMetadata != null && ownerMethodMetadata != methodMetadata && (
-                    !ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()
-            )) {
-                if (ownerMethodMetadata.getOverrides().isEmpty()) {
-                    overrides.add(
-                            new MutableMethodReferenceInfo(
-                                    classMetadata.getName(),
-                                    ownerMethodMetadata.getMethod().getName(),
-                                    ownerMethodMetadata.getMethod().getDesc(),
-                                    ownerMethodMetadata.getSignature()
-                            ));
-                } else {
-                    overrides.addAll(ownerMethodMetadata.getOverrides());
-                }
-            }
-        }
-
-        if (classMetadata.getSuperName() != null) {
-            doFindOverrides(methodMetadata, classMetadata.getSuperName(), overrides);
-        }
-
-        if (classMetadata.getInterfaces() != null && !classMetadata.getInterfaces().isEmpty()) {
-            for (final String interfaceName : classMetadata.getInterfaces()) {
-                doFindOverrides(methodMetadata, interfaceName, overrides);
-            }
-        }
-
-        return overrides;
-    }
-
-    private MutableMethodReferenceInfo doFindFirstOverride(MutableMethodInfo mtd, String owner) {
-        if (mtd.isStatic() || mtd.isPrivate() || mtd.getMethod().getName().startsWith("<"))
-            return null;
-
-        MutableClassInfo ownerInfo = codeTree.getClassMetadataFor(owner);
-
-        if (ownerInfo == null)
-            return null;
-
-        if (ownerInfo.getMethods() != null && !ownerInfo.getMethods().isEmpty()) {
-            MutableMethodInfo methodInOwner = ownerInfo.getMethods().get(mtd.getMethod().getName() + mtd.getMethod().getDesc());
-            if (codeTree.isGameClass(ownerInfo.getName()) && methodInOwner != null && methodInOwner != mtd && (methodInOwner.getAccess() & (Opcodes.ACC_FINAL | Opcodes.ACC_PRIVATE)) == 0)
-                return new MutableMethodReferenceInfo(
-                        ownerInfo.getName(),
-                        methodInOwner.getMethod().getName(),
-                        methodInOwner.getMethod().getDesc(),
-                        methodInOwner.getSignature()
-                );
-
-            for (MutableMethodInfo m : ownerInfo.getMethods().values()) {
-                MutableMethodReferenceInfo target = m.getBouncer() == null ? null : m.getBouncer().getTarget();
-                if (target != null && mtd.getMethod().getName().equals(target.getName())
-                        && mtd.getMethod().getDesc().equals(target.getDesc())) {
-                    MutableMethodReferenceInfo ret = doFindFirstOverride(m, ownerInfo.getName());
-                    if (ret != null)
-                        return ret;
-                }
-            }
-        }
-
-        if (ownerInfo.getSuperName() != null) {
-            MutableMethodReferenceInfo ret = doFindFirstOverride(mtd, ownerInfo.getSuperName());
-            if (ret != null)
-                return ret;
-        }
-
-        if (ownerInfo.getInterfaces() != null && !ownerInfo.getInterfaces().isEmpty()) {
-            for (String interfaceName : ownerInfo.getInterfaces()) {
-                MutableMethodReferenceInfo ret = doFindFirstOverride(mtd, interfaceName);
-                if (ret != null)
-                    return ret;
-            }
-        }
-
-        return null;
+    /**
+     * Resolves the method a bouncer ultimately belongs to: the first method it overrides, or the bouncer itself if it
+     * does not override anything.
+     * <p>
+     * The overrides already follow every bouncer chain up the hierarchy and are cached per class and method by the
+     * {@link OverrideResolver}, so each chain is only walked once no matter how many subclasses share it.
+     */
+    private MutableMethodReferenceInfo resolveBouncerOwner(final MutableMethodInfo bouncer) {
+        final List<MutableMethodReferenceInfo> overrides = overrideResolver.getOverrides(bouncer);
+        if (overrides.isEmpty()) {
+            return new MutableMethodReferenceInfo(
+                    bouncer.getMutableClassInfo().getName(),
+                    bouncer.getMethod().getName(),
+                    bouncer.getMethod().getDesc(),
+                    bouncer.getSignature()
+            );
+        }
+
+        //We pick the first regardless of how many there are in there.
+        //Most likely it is the one from the super class, but it is actually not that relevant.
+        return overrides.get(0);
     }
 
-    private void resolveAbstract(MutableClassInfo cls) {
-        Map<String, String> abs = new HashMap<>();
-        Set<String> known = new TreeSet<>();
-        Queue<String> que = new LinkedList<>();
-        Consumer<String> add = c -> {
-            if (!known.contains(c)) {
-                que.add(c);
-                known.add(c);
-            }
-        };
-
-        add.accept(cls.getName());
-
-        while (!que.isEmpty()) {
-            MutableClassInfo info = codeTree.getClassMetadataFor(que.poll());
-            if (info == null)
-                continue;
-
-            if (info.getMethods() != null)
-                info.getMethods().values().stream()
-                        .filter(MutableMethodInfo::isAbstract)
-                        .filter(mtd -> mtd.getOverrides() == null || mtd.getOverrides().isEmpty()) //We only want the roots
-                        .forEach(mtd -> abs.put(mtd.getMethod().getName() + mtd.getMethod().getDesc(), info.getName()));
-
-            if (info.getSuperName() != null)
-                add.accept(info.getSuperName());
-
-            if (info.getInterfaces() != null)
-                info.getInterfaces().forEach(add);
-        }
-
-        known.clear();
-        add.accept(cls.getName());
-
-        while (!que.isEmpty()) {
-            MutableClassInfo info = codeTree.getClassMetadataFor(que.poll());
-            if (info == null)
-                continue;
-
-            if (info.getMethods() != null && !info.getMethods().isEmpty()) {
-                for (MutableMethodInfo mtd : info.getMethods().values()) {
-                    if (mtd.isAbstract())
-                        continue;
-
-                    String towner = abs.remove(mtd.getMethod().getName() + mtd.getMethod().getDesc());
-                    if (towner == null)
-                        continue;
-                    MutableMethodReferenceInfo target = new MutableMethodReferenceInfo(
-                            towner,
-                            mtd.getMethod().getName(),
-                            mtd.getMethod().getDesc(),
-                            mtd.getSignature()
-                    );
-
-                    if (mtd.getOverrides() != null) {
-                        mtd.getOverrides().add(target);
-                    } else {
-                        mtd.setOverrides(new LinkedHashSet<>(Collections.singletonList(target)));
-                    }
-                }
+    private void resolveAbstract(List<AbstractMethodResolver.Implementation> implementations) {
+        for (AbstractMethodResolver.Implementation implementation : implementations) {
+            MutableMethodInfo mtd = implementation.method;
+            if (mtd.getOverrides() != null) {
+                if (mtd.getOverrides().add(implementation.target))
+                    overrideResolver.overridesChanged();
+            } else {
+                mtd.setOverrides(new LinkedHashSet<>(Collections.singletonList(implementation.target)));
+                overrideResolver.overridesChanged();
             }
-
-            if (info.getSuperName() != null)
-                add.accept(info.getSuperName());
-
-            if (info.getInterfaces() != null && !info.getInterfaces().isEmpty())
-                info.getInterfaces().forEach(add);
         }
     }
 
@@ -326,18 +165,9 @@ public class CodeCleaner {
                 // (ignoring the method name, since we're dealing with obfuscated names here)
                 // If there's more than one matching method, bail out: we can't be sure which one is the correct one
 
-                String targetDesc = "()" + mutableRecordInfo.getDesc();
-                MutableMethodInfo foundGetter = null;
-                int found = 0;
-                for (MutableMethodInfo methodInfo : mutableClassInfo.getMethods().values()) {
-                    if (targetDesc.equals(methodInfo.getMethod().getDesc())) {
-                        foundGetter = methodInfo;
-                        found++;
-                    }
-                }
-
-                if (found == 1) {
-                    mutableRecordInfo.getGetters().add(foundGetter.getMethod());
+                List<MutableMethodInfo> found = mutableClassInfo.getMethodsByDesc("()" + mutableRecordInfo.getDesc());
+                if (found.size() == 1) {
+                    mutableRecordInfo.getGetters().add(found.get(0).getMethod());
                     // Don't add to the field getters for now, so the field getters are always those determined by the
                     // bytecode heuristic (See constructor for MutableMethodInfo)
                 }
@@ -348,5 +178,4 @@ public class CodeCleaner {
             }
         }
     }
-
 }
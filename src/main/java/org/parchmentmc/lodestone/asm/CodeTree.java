@@ -1,28 +1,189 @@
 package org.parchmentmc.lodestone.asm;
 
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.tree.ClassNode;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
-public class CodeTree {
+public class CodeTree implements Closeable {
+    private final boolean lazy;
+    private final Path libraryIndexDirectory;
+    private final List<ZipFile> openJars = Collections.synchronizedList(new ArrayList<>());
     private final Set<String> noneLibraryClasses = new LinkedHashSet<>();
-    private final Map<String, byte[]> sources = new HashMap<>();
+    private final Map<String, ClassSource> sources = new ConcurrentHashMap<>();
+    private final SymbolTable symbols = new SymbolTable();
 
-    private final Map<String, MutableClassInfo> parsedClasses = new HashMap<>();
+    private final ConcurrentMap<String, MutableClassInfo> parsedClasses = new ConcurrentHashMap<>();
+    private InheritanceGraph inheritanceGraph;
+
+    public CodeTree() {
+        this(false);
+    }
+
+    /**
+     * Creates a new code tree.
+     * <p>
+     * In lazy mode only the entry names are read from the central directory of each jar when it is loaded, and the
+     * bytes of a class are only inflated when it is first requested. The jars are kept open until the tree is closed.
+     *
+     * @param lazy Whether class bytes should be read on first lookup instead of when the jar is loaded.
+     */
+    public CodeTree(final boolean lazy) {
+        this(lazy, null);
+    }
+
+    /**
+     * Creates a new code tree which keeps a persistent index of the library jars it loads.
+     * <p>
+     * The first time a library jar is loaded all of its classes are parsed and their hierarchy data is written to an
+     * index file in the given directory, keyed by the hash of the jar. Later loads of the same jar read that index
+     * instead of the jar itself.
+     *
+     * @param lazy                  Whether class bytes should be read on first lookup instead of when the jar is loaded.
+     * @param libraryIndexDirectory The directory holding the library indexes, or {@code null} to not use any.
+     */
+    public CodeTree(final boolean lazy, final Path libraryIndexDirectory) {
+        this.lazy = lazy;
+        this.libraryIndexDirectory = libraryIndexDirectory;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
 
     public Set<String> getNoneLibraryClasses() {
         return noneLibraryClasses;
     }
 
     public final void load(final Path path, final boolean library) throws IOException {
+        register(readJar(path, library), library);
+    }
+
+    /**
+     * Loads all the given jars, reading them concurrently.
+     * <p>
+     * The jars are registered in the order they are given in, so if multiple jars define the same class the first
+     * jar wins, exactly as if {@link #load(Path, boolean)} was called for each of them in turn.
+     *
+     * @param paths   The jars to load.
+     * @param library Whether the jars are libraries.
+     * @throws IOException If any of the jars could not be read.
+     */
+    public final void loadAll(final Collection<Path> paths, final boolean library) throws IOException {
+        final List<Map<String, ClassSource>> jars;
+        try {
+            jars = paths.parallelStream()
+                    .map(path -> {
+                        try {
+                            return readJar(path, library);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (Map<String, ClassSource> jar : jars) {
+            register(jar, library);
+        }
+    }
+
+    private void register(final Map<String, ClassSource> jar, final boolean library) {
+        for (Map.Entry<String, ClassSource> entry : jar.entrySet()) {
+            String cls = entry.getKey();
+            if (!sources.containsKey(cls)) {
+                sources.put(cls, entry.getValue());
+                if (!library)
+                    noneLibraryClasses.add(cls);
+            }
+        }
+    }
+
+    private Map<String, ClassSource> readJar(final Path path, final boolean library) throws IOException {
+        if (library && libraryIndexDirectory != null)
+            return readIndexedJar(path);
+
+        final Map<String, ClassSource> classes = new LinkedHashMap<>();
+        if (lazy) {
+            final ZipFile zipFile = new ZipFile(path.toFile());
+            openJars.add(zipFile);
+
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class"))
+                    continue;
+
+                String cls = name.substring(0, name.length() - 6);
+                if (!classes.containsKey(cls)) {
+                    classes.put(cls, () -> {
+                        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                            return parseClass(readStreamFully(inputStream), library);
+                        }
+                    });
+                }
+            }
+            return classes;
+        }
+
+        readClasses(path).forEach((cls, data) -> classes.put(cls, () -> parseClass(data, library)));
+        return classes;
+    }
+
+    private Map<String, ClassSource> readIndexedJar(final Path path) throws IOException {
+        final Path indexFile = LibraryIndex.getIndexFile(libraryIndexDirectory, path);
+        final Map<String, ClassSource> indexed = LibraryIndex.read(indexFile, symbols);
+        if (indexed != null) {
+            final Map<String, ClassSource> classes = new LinkedHashMap<>();
+            indexed.forEach((cls, source) -> classes.put(cls, () -> {
+                try {
+                    return source.parse();
+                } catch (IOException | RuntimeException e) {
+                    //The index is broken after all, so drop it to have it rebuilt and parse the class from the jar.
+                    Files.deleteIfExists(indexFile);
+                    return parseClass(readClass(path, cls), true);
+                }
+            }));
+            return classes;
+        }
+
+        final Map<String, MutableClassInfo> parsed = new LinkedHashMap<>();
+        readClasses(path).forEach((cls, data) -> parsed.put(cls, parseClass(data, true)));
+        LibraryIndex.write(indexFile, parsed);
+
+        final Map<String, ClassSource> classes = new LinkedHashMap<>();
+        parsed.forEach((cls, info) -> classes.put(cls, () -> info));
+        return classes;
+    }
+
+    private static byte[] readClass(final Path path, final String cls) throws IOException {
+        try (ZipFile zipFile = new ZipFile(path.toFile())) {
+            final ZipEntry entry = zipFile.getEntry(cls + ".class");
+            if (entry == null)
+                throw new IOException("Missing class " + cls + " in " + path);
+            try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                return readStreamFully(inputStream);
+            }
+        }
+    }
+
+    private static Map<String, byte[]> readClasses(final Path path) throws IOException {
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
         try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(path))) {
             ZipEntry entry;
             while ((entry = zipInputStream.getNextEntry()) != null) {
@@ -31,40 +192,104 @@ public class CodeTree {
                     continue;
 
                 String cls = name.substring(0, name.length() - 6);
-                if (!sources.containsKey(cls)) {
-                    byte[] data = readStreamFully(zipInputStream);
-                    sources.put(cls, data);
-                    if (!library)
-                        noneLibraryClasses.add(cls);
+                if (!classes.containsKey(cls)) {
+                    classes.put(cls, readStreamFully(zipInputStream));
                 }
             }
         }
+        return classes;
+    }
+
+    /**
+     * Eagerly parses all the classes which are not part of a library, spreading the work over all cores.
+     *
+     * @return The parsed classes, in the order their jars listed them.
+     */
+    public Map<String, MutableClassInfo> parseGameClasses() {
+        noneLibraryClasses.parallelStream().forEach(this::getClassMetadataFor);
+
+        final Map<String, MutableClassInfo> classes = new LinkedHashMap<>();
+        for (String cls : noneLibraryClasses) {
+            classes.put(cls, parsedClasses.get(cls));
+        }
+        return classes;
     }
 
+    /**
+     * Gets the inheritance graph of all game classes and their known supertypes, building it on first use.
+     * <p>
+     * All jars need to be loaded before this is first called.
+     *
+     * @return The inheritance graph.
+     */
+    public synchronized InheritanceGraph getInheritanceGraph() {
+        if (inheritanceGraph == null)
+            inheritanceGraph = InheritanceGraph.build(this, parseGameClasses().values());
+        return inheritanceGraph;
+    }
+
+    /**
+     * Gets the parsed metadata of a class, parsing it if this has not happened yet.
+     * <p>
+     * This is safe to call from multiple threads. Threads looking up the same class at the same time may both parse
+     * it, but all of them get the metadata which was published first.
+     *
+     * @param cls The name of the class.
+     * @return The metadata of the class, or {@code null} if the class is not known.
+     */
     public MutableClassInfo getClassMetadataFor(String cls) {
         MutableClassInfo classMetadata = parsedClasses.get(cls);
-        if (classMetadata == null) {
-            byte[] data = sources.remove(cls);
-            if (data == null) {
-                return null;
-            }
-            ClassNode classNode = new ClassNode();
-            ClassReader classReader = new ClassReader(data);
-            classReader.accept(classNode, 0);
+        if (classMetadata != null)
+            return classMetadata;
 
-            classMetadata = buildClass(classNode);
+        final ClassSource source = sources.get(cls);
+        if (source == null) {
+            // Either unknown, or parsed by another thread in the meantime
+            return parsedClasses.get(cls);
+        }
 
-            parsedClasses.put(cls, classMetadata);
+        //Parse outside of the map, so reading and parsing never blocks other lookups.
+        try {
+            classMetadata = source.parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read class: " + cls, e);
         }
-        return classMetadata;
+        final MutableClassInfo existing = parsedClasses.putIfAbsent(cls, classMetadata);
+        // Only drop the source once the parsed class is visible, see above
+        sources.remove(cls);
+        return existing == null ? classMetadata : existing;
     }
 
     public boolean isGameClass(final String cls) {
         return noneLibraryClasses.contains(cls);
     }
 
-    private MutableClassInfo buildClass(final ClassNode classNode) {
-        return new MutableClassInfo(classNode);
+    private MutableClassInfo parseClass(final byte[] data, final boolean library) {
+        ClassInfoVisitor visitor = new ClassInfoVisitor(symbols);
+        //Frames are never part of a bouncer or getter in libraries, so skip them there.
+        new ClassReader(data).accept(visitor, library ? ClassReader.SKIP_FRAMES : 0);
+        return visitor.getClassInfo();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        synchronized (openJars) {
+            for (ZipFile zipFile : openJars) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = e;
+                    } else {
+                        exception.addSuppressed(e);
+                    }
+                }
+            }
+            openJars.clear();
+        }
+        if (exception != null)
+            throw exception;
     }
 
     private static byte[] readStreamFully(InputStream is) throws IOException {
@@ -76,4 +301,9 @@ public class CodeTree {
         }
         return byteArrayOutputStream.toByteArray();
     }
+
+    @FunctionalInterface
+    interface ClassSource {
+        MutableClassInfo parse() throws IOException;
+    }
 }
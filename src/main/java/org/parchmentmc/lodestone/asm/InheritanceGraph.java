@@ -0,0 +1,350 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * A compact, integer indexed view of the inheritance graph of a set of classes and all their known supertypes.
+ * <p>
+ * Every class is given an id, going through the hierarchy from the top down, so the classes with the ids between
+ * {@link #getLevelStart(int)} and {@link #getLevelEnd(int)} only have supertypes on earlier levels. Classes in a
+ * circular hierarchy are not on any level and get the highest ids. The direct supertypes of all classes are stored
+ * in a single array, superclass first. The ancestors of a class are computed as a bit set of their ids the first time
+ * they are needed, from the ones of its supertypes.
+ * <p>
+ * The graph is immutable once built, and safe to use from multiple threads.
+ */
+public class InheritanceGraph {
+    private final MutableClassInfo[] classes;
+    private final Map<String, Integer> ids;
+    private final int[] superTypeOffsets;
+    private final int[] superTypes;
+    private final int[] levelOffsets;
+    private final BitSet gameClasses;
+    private final AtomicReferenceArray<BitSet> ancestors;
+
+    private InheritanceGraph(final MutableClassInfo[] classes, final Map<String, Integer> ids, final int[] superTypeOffsets, final int[] superTypes,
+                             final int[] levelOffsets, final BitSet gameClasses) {
+        this.classes = classes;
+        this.ids = ids;
+        this.superTypeOffsets = superTypeOffsets;
+        this.superTypes = superTypes;
+        this.levelOffsets = levelOffsets;
+        this.gameClasses = gameClasses;
+        this.ancestors = new AtomicReferenceArray<>(classes.length);
+    }
+
+    /**
+     * Builds the inheritance graph of the given classes and all their supertypes known to the code tree.
+     * Classes are always looked up by their name, so a class shadowed by another one of the same name is replaced by
+     * that one.
+     *
+     * @param codeTree The code tree to look the supertypes up in.
+     * @param classes  The classes.
+     * @return The graph.
+     */
+    static InheritanceGraph build(final CodeTree codeTree, final Collection<MutableClassInfo> classes) {
+        //Classes are looked up by the name they are referenced with, which is not necessarily the name they declare.
+        final Map<String, MutableClassInfo> byName = new HashMap<>();
+        final Map<MutableClassInfo, List<MutableClassInfo>> directSuperTypes = new IdentityHashMap<>();
+        final List<MutableClassInfo> members = new ArrayList<>();
+        for (MutableClassInfo info : classes) {
+            final MutableClassInfo member = byName.computeIfAbsent(info.getName(), codeTree::getClassMetadataFor);
+            if (member != null && !directSuperTypes.containsKey(member)) {
+                directSuperTypes.put(member, null);
+                members.add(member);
+            }
+        }
+
+        List<MutableClassInfo> frontier = new ArrayList<>(members);
+        while (!frontier.isEmpty()) {
+            //Library classes are parsed lazily, so parse the newly found supertypes in parallel up front.
+            frontier.stream()
+                    .flatMap(info -> getSuperTypeNames(info).stream())
+                    .filter(name -> !byName.containsKey(name))
+                    .distinct()
+                    .collect(Collectors.toList())
+                    .parallelStream()
+                    .forEach(codeTree::getClassMetadataFor);
+
+            final List<MutableClassInfo> next = new ArrayList<>();
+            for (MutableClassInfo info : frontier) {
+                final List<MutableClassInfo> infoSuperTypes = new ArrayList<>();
+                for (String superType : getSuperTypeNames(info)) {
+                    final MutableClassInfo superInfo = byName.computeIfAbsent(superType, codeTree::getClassMetadataFor);
+                    if (superInfo == null) {
+                        byName.remove(superType);
+                        continue;
+                    }
+
+                    if (!directSuperTypes.containsKey(superInfo)) {
+                        directSuperTypes.put(superInfo, null);
+                        members.add(superInfo);
+                        next.add(superInfo);
+                    }
+                    if (!infoSuperTypes.contains(superInfo))
+                        infoSuperTypes.add(superInfo);
+                }
+                directSuperTypes.put(info, infoSuperTypes);
+            }
+            frontier = next;
+        }
+
+        //Number the classes level by level, each level holding the classes whose supertypes are all numbered.
+        final Map<MutableClassInfo, List<MutableClassInfo>> subTypes = new IdentityHashMap<>();
+        final Map<MutableClassInfo, Integer> pendingSuperTypes = new IdentityHashMap<>();
+        for (MutableClassInfo info : members) {
+            final List<MutableClassInfo> infoSuperTypes = directSuperTypes.get(info);
+            for (MutableClassInfo superInfo : infoSuperTypes) {
+                subTypes.computeIfAbsent(superInfo, key -> new ArrayList<>()).add(info);
+            }
+            pendingSuperTypes.put(info, infoSuperTypes.size());
+        }
+
+        final MutableClassInfo[] ordered = new MutableClassInfo[members.size()];
+        final Map<MutableClassInfo, Integer> idsByClass = new IdentityHashMap<>();
+        final List<Integer> levelOffsets = new ArrayList<>();
+        List<MutableClassInfo> level = new ArrayList<>();
+        for (MutableClassInfo info : members) {
+            if (pendingSuperTypes.get(info) == 0)
+                level.add(info);
+        }
+        int count = 0;
+        while (!level.isEmpty()) {
+            levelOffsets.add(count);
+            final List<MutableClassInfo> next = new ArrayList<>();
+            for (MutableClassInfo info : level) {
+                idsByClass.put(info, count);
+                ordered[count++] = info;
+                for (MutableClassInfo subType : subTypes.getOrDefault(info, Collections.emptyList())) {
+                    if (pendingSuperTypes.merge(subType, -1, Integer::sum) == 0)
+                        next.add(subType);
+                }
+            }
+            level = next;
+        }
+        levelOffsets.add(count);
+        for (MutableClassInfo info : members) {
+            if (!idsByClass.containsKey(info)) {
+                idsByClass.put(info, count);
+                ordered[count++] = info;
+            }
+        }
+
+        final Map<String, Integer> ids = new HashMap<>(byName.size() * 2);
+        byName.forEach((name, info) -> ids.put(name, idsByClass.get(info)));
+
+        final int[] superTypeOffsets = new int[ordered.length + 1];
+        final List<Integer> superTypeList = new ArrayList<>();
+        final BitSet gameClasses = new BitSet(ordered.length);
+        for (int id = 0; id < ordered.length; id++) {
+            superTypeOffsets[id] = superTypeList.size();
+            for (MutableClassInfo superInfo : directSuperTypes.get(ordered[id])) {
+                superTypeList.add(idsByClass.get(superInfo));
+            }
+            if (codeTree.isGameClass(ordered[id].getName()))
+                gameClasses.set(id);
+        }
+        superTypeOffsets[ordered.length] = superTypeList.size();
+        final int[] superTypes = superTypeList.stream().mapToInt(Integer::intValue).toArray();
+
+        return new InheritanceGraph(ordered, ids, superTypeOffsets, superTypes,
+                levelOffsets.stream().mapToInt(Integer::intValue).toArray(), gameClasses);
+    }
+
+    private static List<String> getSuperTypeNames(final MutableClassInfo info) {
+        final List<String> superTypes = new ArrayList<>(info.getInterfaces().size() + 1);
+        if (!info.getSuperName().isEmpty())
+            superTypes.add(info.getSuperName());
+        superTypes.addAll(info.getInterfaces());
+        return superTypes;
+    }
+
+    /**
+     * @return The number of classes in the graph.
+     */
+    public int size() {
+        return classes.length;
+    }
+
+    /**
+     * Gets the id of a class.
+     *
+     * @param name The name of the class.
+     * @return The id, or {@code -1} if the class is not part of the graph.
+     */
+    public int getId(final String name) {
+        final Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public MutableClassInfo getClassInfo(final int id) {
+        return classes[id];
+    }
+
+    public boolean isGameClass(final int id) {
+        return gameClasses.get(id);
+    }
+
+    /**
+     * @return The number of levels, classes in a circular hierarchy are not on any level.
+     */
+    public int getLevelCount() {
+        return levelOffsets.length - 1;
+    }
+
+    /**
+     * @param level The level.
+     * @return The id of the first class on the level.
+     */
+    public int getLevelStart(final int level) {
+        return levelOffsets[level];
+    }
+
+    /**
+     * @param level The level.
+     * @return The id after the last class on the level.
+     */
+    public int getLevelEnd(final int level) {
+        return levelOffsets[level + 1];
+    }
+
+    /**
+     * @param id The id of the class.
+     * @return The number of known direct supertypes of the class.
+     */
+    public int getSuperTypeCount(final int id) {
+        return superTypeOffsets[id + 1] - superTypeOffsets[id];
+    }
+
+    /**
+     * Gets a direct supertype of a class. The superclass comes first, followed by the interfaces in declaration order.
+     * Supertypes which are not known to the code tree are left out.
+     *
+     * @param id    The id of the class.
+     * @param index The index of the supertype, between {@code 0} and {@link #getSuperTypeCount(int)}.
+     * @return The id of the supertype.
+     */
+    public int getSuperType(final int id, final int index) {
+        return superTypes[superTypeOffsets[id] + index];
+    }
+
+    /**
+     * Gets the ids of all known, direct and indirect, supertypes of a class.
+     *
+     * @param id The id of the class.
+     * @return A copy of the ancestors.
+     */
+    public BitSet getAncestors(final int id) {
+        return (BitSet) ancestors(id).clone();
+    }
+
+    /**
+     * Checks whether a class is a direct or indirect subtype of another one.
+     * Supertypes always have a lower id than a class outside of a circular hierarchy, so most checks are answered
+     * without computing any ancestors.
+     *
+     * @param id         The id of the class.
+     * @param ancestorId The id of the possible supertype.
+     * @return {@code true} if the class is a subtype of the other one.
+     */
+    public boolean isSubtypeOf(final int id, final int ancestorId) {
+        if (ancestorId >= id && id < levelOffsets[levelOffsets.length - 1])
+            return false;
+        return ancestors(id).get(ancestorId);
+    }
+
+    private BitSet ancestors(final int id) {
+        final BitSet known = ancestors.get(id);
+        if (known != null)
+            return known;
+
+        if (id < levelOffsets[levelOffsets.length - 1]) {
+            walkSuperTypesFirst(id, superType -> ancestors.get(superType) != null, this::computeLeveledAncestors);
+        } else {
+            //A class in a circular hierarchy, its supertypes may lead back to it.
+            final BitSet infoAncestors = new BitSet();
+            final List<Integer> queue = new ArrayList<>();
+            queue.add(id);
+            for (int index = 0; index < queue.size(); index++) {
+                final int current = queue.get(index);
+                for (int i = 0; i < getSuperTypeCount(current); i++) {
+                    final int superType = getSuperType(current, i);
+                    if (!infoAncestors.get(superType)) {
+                        infoAncestors.set(superType);
+                        queue.add(superType);
+                    }
+                }
+            }
+            ancestors.compareAndSet(id, null, infoAncestors);
+        }
+        return ancestors.get(id);
+    }
+
+    /**
+     * Computes the ancestors of a class on a level, whose supertypes are all on earlier levels and already computed.
+     */
+    private void computeLeveledAncestors(final int id) {
+        final BitSet infoAncestors = new BitSet();
+        for (int i = 0; i < getSuperTypeCount(id); i++) {
+            final int superType = getSuperType(id, i);
+            infoAncestors.set(superType);
+            infoAncestors.or(ancestors.get(superType));
+        }
+        ancestors.compareAndSet(id, null, infoAncestors);
+    }
+
+    /**
+     * Walks a class and its supertypes depth first, handling every supertype before the class itself, in the same order
+     * as visiting the direct supertypes of each class one after another, superclass first.
+     * <p>
+     * The walk uses an explicit stack, so it does not depend on the depth of the hierarchy, and every class is only
+     * handled once per walk, even if it is reached through multiple paths. Supertypes which are still being walked, in a
+     * circular hierarchy, are skipped.
+     *
+     * @param id     The id of the class.
+     * @param skip   Whether a class and its supertypes do not need to be walked, tested when the class is reached.
+     * @param action The action to run for each class once all its supertypes are handled.
+     */
+    public void walkSuperTypesFirst(final int id, final IntPredicate skip, final IntConsumer action) {
+        if (skip.test(id))
+            return;
+
+        final BitSet visited = new BitSet();
+        int[] stack = new int[8];
+        int[] nextSuperType = new int[8];
+        int size = 0;
+        stack[size++] = id;
+        visited.set(id);
+        while (size > 0) {
+            final int current = stack[size - 1];
+            if (nextSuperType[size - 1] < getSuperTypeCount(current)) {
+                final int superType = getSuperType(current, nextSuperType[size - 1]++);
+                if (visited.get(superType) || skip.test(superType))
+                    continue;
+
+                visited.set(superType);
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, size * 2);
+                    nextSuperType = Arrays.copyOf(nextSuperType, size * 2);
+                }
+                stack[size] = superType;
+                nextSuperType[size++] = 0;
+            } else {
+                size--;
+                action.accept(current);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent index of the class hierarchy data of a library jar.
+ * <p>
+ * An index file holds everything {@link CodeCleaner} needs from the classes of a single jar, in the state they are in
+ * directly after parsing. Index files are named after the SHA-1 of the jar they were built from, so they can be
+ * shared between every Minecraft version that uses the same library. Each class is stored as its own block, which is
+ * only decoded when the class is first requested. A checksum of all blocks is checked up front, so a damaged file is
+ * rebuilt rather than failing when one of its classes is decoded.
+ */
+final class LibraryIndex {
+    private static final int MAGIC = 0x4C534C49; // LSLI
+    private static final int VERSION = 2;
+    private static final int CHECKSUM_OFFSET = 8;
+    //Everything from the class count on is covered by the checksum.
+    private static final int CHECKED_OFFSET = 12;
+
+    private LibraryIndex() {
+        throw new IllegalStateException("Can not instantiate an instance of: LibraryIndex. This is a utility class");
+    }
+
+    static Path getIndexFile(final Path directory, final Path jar) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+
+        try (InputStream inputStream = Files.newInputStream(jar)) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        final StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return directory.resolve(hash + ".bin");
+    }
+
+    /**
+     * Reads an index file.
+     * <p>
+     * Only the checksum and the layout of the blocks are checked here, the classes themselves may still fail to
+     * decode with an {@link IOException} or a {@link RuntimeException}.
+     *
+     * @param file    The index file.
+     * @param symbols The symbol table to build the classes with.
+     * @return The classes in the index, in the order they were written, or {@code null} if there is no valid index.
+     * @throws IOException If the index file exists but could not be read.
+     */
+    static Map<String, CodeTree.ClassSource> read(final Path file, final SymbolTable symbols) throws IOException {
+        if (!Files.isRegularFile(file))
+            return null;
+
+        final byte[] data = Files.readAllBytes(file);
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+
+            final int checksum = buffer.getInt();
+            if (checksum != checksum(data, CHECKED_OFFSET))
+                return null;
+
+            final int count = buffer.getInt();
+            final Map<String, CodeTree.ClassSource> classes = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                final byte[] name = new byte[checkLength(buffer, buffer.getInt())];
+                buffer.get(name);
+                final int length = checkLength(buffer, buffer.getInt());
+                final int offset = buffer.position();
+                buffer.position(offset + length);
+
+                classes.put(new String(name, StandardCharsets.UTF_8), () -> readClass(new DataInputStream(new ByteArrayInputStream(data, offset, length)), symbols));
+            }
+            return classes;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // Truncated or otherwise broken index, it will simply be rebuilt.
+            return null;
+        }
+    }
+
+    /**
+     * @return The length, if it is not negative and that many bytes remain in the buffer.
+     * @throws IllegalArgumentException If the length does not fit.
+     */
+    private static int checkLength(final ByteBuffer buffer, final int length) {
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("Invalid length: " + length);
+        return length;
+    }
+
+    private static int checksum(final byte[] data, final int offset) {
+        final CRC32 crc = new CRC32();
+        crc.update(data, offset, data.length - offset);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes an index file, replacing any existing one.
+     *
+     * @param file    The index file.
+     * @param classes The freshly parsed classes of the jar, keyed by their entry name without extension.
+     * @throws IOException If the index file could not be written.
+     */
+    static void write(final Path file, final Map<String, MutableClassInfo> classes) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(content)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            //The checksum is filled in once everything after it is written.
+            output.writeInt(0);
+            output.writeInt(classes.size());
+
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+            for (Map.Entry<String, MutableClassInfo> entry : classes.entrySet()) {
+                block.reset();
+                writeClass(new DataOutputStream(block), entry.getValue());
+
+                final byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name.length);
+                output.write(name);
+                output.writeInt(block.size());
+                block.writeTo(output);
+            }
+        }
+        final byte[] data = content.toByteArray();
+        ByteBuffer.wrap(data).putInt(CHECKSUM_OFFSET, checksum(data, CHECKED_OFFSET));
+
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeClass(final DataOutputStream output, final MutableClassInfo info) throws IOException {
+        output.writeUTF(info.getName());
+        output.writeUTF(info.getSuperName());
+        output.writeInt(info.getInterfaces().size());
+        for (String interfaceName : info.getInterfaces()) {
+            output.writeUTF(interfaceName);
+        }
+        output.writeInt(info.getAccess());
+        output.writeUTF(info.getSignature());
+
+        final List<MutableMethodInfo> methods = new ArrayList<>(info.getMethods().values());
+        final Map<MutableMethodReferenceInfo, Integer> methodIndices = new IdentityHashMap<>();
+        for (int i = 0; i < methods.size(); i++) {
+            methodIndices.put(methods.get(i).getMethod(), i);
+        }
+
+        output.writeInt(info.getFields().size());
+        for (MutableFieldInfo field : info.getFields().values()) {
+            output.writeUTF(field.getName());
+            output.writeUTF(field.getDesc());
+            output.writeInt(field.getAccess());
+            output.writeUTF(field.getSignature());
+            output.writeInt(field.getGetters().size());
+            for (MutableMethodReferenceInfo getter : field.getGetters()) {
+                output.writeInt(methodIndices.get(getter));
+            }
+        }
+
+        output.writeInt(methods.size());
+        for (MutableMethodInfo method : methods) {
+            output.writeUTF(method.getMethod().getName());
+            output.writeUTF(method.getMethod().getDesc());
+            output.writeInt(method.getAccess());
+            output.writeUTF(method.getSignature());
+            output.writeBoolean(method.isLambda());
+
+            final MutableBouncerInfo bouncer = method.getBouncer();
+            output.writeBoolean(bouncer != null);
+            if (bouncer != null) {
+                output.writeUTF(bouncer.getTarget().getOwner());
+                output.writeUTF(bouncer.getTarget().getName());
+                output.writeUTF(bouncer.getTarget().getDesc());
+            }
+        }
+    }
+
+    private static MutableClassInfo readClass(final DataInputStream input, final SymbolTable symbols) throws IOException {
+        final String name = input.readUTF();
+        final String superName = input.readUTF();
+        final List<String> interfaces = new ArrayList<>();
+        for (int i = input.readInt(); i > 0; i--) {
+            interfaces.add(input.readUTF());
+        }
+        final int access = input.readInt();
+        final String signature = input.readUTF();
+
+        final MutableClassInfo info = new MutableClassInfo(symbols, name, superName.isEmpty() ? null : superName, interfaces, access, emptyToNull(signature));
+
+        final int fieldCount = input.readInt();
+        final List<MutableFieldInfo> fields = new ArrayList<>(fieldCount);
+        final List<int[]> getterIndices = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            final MutableFieldInfo field = new MutableFieldInfo(info, input.readUTF(), input.readUTF(), input.readInt(), emptyToNull(input.readUTF()));
+            final int[] getters = new int[input.readInt()];
+            for (int j = 0; j < getters.length; j++) {
+                getters[j] = input.readInt();
+            }
+            info.addField(field);
+            fields.add(field);
+            getterIndices.add(getters);
+        }
+
+        final int methodCount = input.readInt();
+        final List<MutableMethodInfo> methods = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            final String methodName = input.readUTF();
+            final String desc = input.readUTF();
+            final int methodAccess = input.readInt();
+            final String methodSignature = emptyToNull(input.readUTF());
+            final boolean lambda = input.readBoolean();
+            final MutableMethodReferenceInfo bouncerTarget = input.readBoolean()
+                    ? new MutableMethodReferenceInfo(input.readUTF(), input.readUTF(), input.readUTF(), null)
+                    : null;
+
+            final MutableMethodInfo method = new MutableMethodInfo(info, methodName, desc, methodAccess, methodSignature, lambda, bouncerTarget);
+            info.addMethod(method);
+            methods.add(method);
+        }
+
+        for (int i = 0; i < fields.size(); i++) {
+            for (int getter : getterIndices.get(i)) {
+                fields.get(i).getGetters().add(methods.get(getter).getMethod());
+            }
+        }
+
+        return info;
+    }
+
+    private static String emptyToNull(final String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,57 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cache of values per class of an {@link InheritanceGraph} and method key.
+ * <p>
+ * This is safe to use from multiple threads. Values are computed outside of any lock, so two threads may compute the
+ * same value at once, in which case the first one stored is kept.
+ *
+ * @param <T> The type of the values.
+ */
+class MethodCache<T> {
+    private final AtomicReferenceArray<LongObjectMap<T>> caches;
+
+    MethodCache(final int classCount) {
+        this.caches = new AtomicReferenceArray<>(classCount);
+    }
+
+    T get(final int id, final long key) {
+        final LongObjectMap<T> cache = caches.get(id);
+        if (cache == null)
+            return null;
+
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Stores a value, unless one was stored in the meantime.
+     *
+     * @return The value which is now stored.
+     */
+    T put(final int id, final long key, final T value) {
+        LongObjectMap<T> cache = caches.get(id);
+        if (cache == null) {
+            caches.compareAndSet(id, null, new LongObjectMap<>());
+            cache = caches.get(id);
+        }
+
+        synchronized (cache) {
+            final T existing = cache.get(key);
+            if (existing != null)
+                return existing;
+
+            cache.put(key, value);
+            return value;
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < caches.length(); i++) {
+            caches.set(i, null);
+        }
+    }
+}
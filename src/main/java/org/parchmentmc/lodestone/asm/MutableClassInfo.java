@@ -1,85 +1,32 @@
 package org.parchmentmc.lodestone.asm;
 
-import org.objectweb.asm.Handle;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.AbstractInsnNode;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.InvokeDynamicInsnNode;
-import org.objectweb.asm.tree.MethodNode;
-
 import java.util.*;
 
 public class MutableClassInfo implements MutableSecuredObjectInfo {
-    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
-            "java/lang/invoke/LambdaMetafactory",
-            "metafactory",
-            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
-            false);
-    private static final Handle LAMBDA_ALTMETAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
-            "java/lang/invoke/LambdaMetafactory",
-            "altMetafactory",
-            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;",
-            false);
-
+    private final SymbolTable symbols;
     private final String name;
     private final String superName;
     private final List<String> interfaces;
     private final Integer access;
     private final String signature;
-    private final Map<String, MutableFieldInfo> fields;
-    private final Map<String, MutableMethodInfo> methods;
+    private Map<String, MutableFieldInfo> fields;
+    private Map<String, MutableMethodInfo> methods;
+    private LongObjectMap<MutableMethodInfo> methodsByKey;
+    private LongObjectMap<List<MutableMethodInfo>> methodsByDesc;
+    private LongObjectMap<List<MutableMethodInfo>> bouncersByTarget;
     private final Map<String, MutableRecordInfo> records;
     private final boolean isRecord;
     private boolean resolved = false;
 
-    MutableClassInfo(ClassNode node) {
-        this.name = node.name;
-        this.superName = "java/lang/Object".equals(node.superName) ? null : node.superName;
-        this.isRecord = "java/lang/Record".equals(node.superName);
-        this.interfaces = node.interfaces != null && !node.interfaces.isEmpty() ? new ArrayList<>(node.interfaces) : null;
-        this.access = node.access == 0 ? null : node.access;
-        this.signature = node.signature;
-
+    MutableClassInfo(final SymbolTable symbols, final String name, final String superName, final List<String> interfaces, final int access, final String signature) {
+        this.symbols = symbols;
+        this.name = name;
+        this.superName = "java/lang/Object".equals(superName) ? null : superName;
+        this.isRecord = "java/lang/Record".equals(superName);
+        this.interfaces = interfaces != null && !interfaces.isEmpty() ? new ArrayList<>(interfaces) : null;
+        this.access = access == 0 ? null : access;
+        this.signature = signature;
         this.records = new LinkedHashMap<>();
-        if (node.fields == null || node.fields.isEmpty()) {
-            this.fields = null;
-        } else {
-            this.fields = new LinkedHashMap<>();
-            node.fields.forEach(fld -> this.fields.put(fld.name, new MutableFieldInfo(this, fld)));
-        }
-
-        if (node.methods == null || node.methods.isEmpty()) {
-            this.methods = null;
-        } else {
-            //Gather Lambda methods so we can skip them in bouncers?
-            Set<String> lambdas = new HashSet<>();
-            for (MethodNode mtd : node.methods) {
-                for (AbstractInsnNode asn : (Iterable<AbstractInsnNode>) () -> mtd.instructions.iterator()) {
-                    if (asn instanceof InvokeDynamicInsnNode) {
-                        Handle target = getLambdaTarget((InvokeDynamicInsnNode) asn);
-                        if (target != null) {
-                            lambdas.add(target.getOwner() + '/' + target.getName() + target.getDesc());
-                        }
-                    }
-                }
-            }
-
-            this.methods = new LinkedHashMap<>();
-            for (MethodNode mtd : node.methods) {
-                String key = mtd.name + mtd.desc;
-                this.methods.put(key, new MutableMethodInfo(this, mtd, lambdas.contains(this.name + '/' + key)));
-            }
-        }
-    }
-
-    private Handle getLambdaTarget(InvokeDynamicInsnNode idn) {
-        if (LAMBDA_METAFACTORY.equals(idn.bsm) && idn.bsmArgs != null && idn.bsmArgs.length == 3 && idn.bsmArgs[1] instanceof Handle) {
-            return ((Handle) idn.bsmArgs[1]);
-        }
-        if (LAMBDA_ALTMETAFACTORY.equals(idn.bsm) && idn.bsmArgs != null && idn.bsmArgs.length == 5 && idn.bsmArgs[1] instanceof Handle) {
-            return ((Handle) idn.bsmArgs[1]);
-        }
-        return null;
     }
 
     public String getName() {
@@ -110,6 +57,48 @@ public class MutableClassInfo implements MutableSecuredObjectInfo {
         return methods == null ? Collections.emptyMap() : methods;
     }
 
+    /**
+     * Looks up a method of this class by its key.
+     *
+     * @param key The key of the method, see {@link MutableMethodInfo#getKey()}.
+     * @return The method, or {@code null} if this class does not declare it.
+     */
+    public MutableMethodInfo getMethod(final long key) {
+        return methodsByKey == null ? null : methodsByKey.get(key);
+    }
+
+    /**
+     * Gets the methods of this class with the given descriptor.
+     *
+     * @param desc The descriptor.
+     * @return The methods with the descriptor, in declaration order.
+     */
+    public List<MutableMethodInfo> getMethodsByDesc(final String desc) {
+        if (methodsByDesc == null)
+            return Collections.emptyList();
+
+        final List<MutableMethodInfo> found = methodsByDesc.get(symbols.intern(desc));
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    /**
+     * Gets the bouncers of this class which bounce to the method with the given key.
+     *
+     * @param key The key of the bounced to method, see {@link MutableMethodInfo#getKey()}.
+     * @return The bouncers, in declaration order.
+     */
+    public List<MutableMethodInfo> getBouncersTo(final long key) {
+        if (bouncersByTarget == null)
+            return Collections.emptyList();
+
+        final List<MutableMethodInfo> found = bouncersByTarget.get(key);
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
     public boolean isRecord() {
         return isRecord;
     }
@@ -122,6 +111,39 @@ public class MutableClassInfo implements MutableSecuredObjectInfo {
         this.resolved = resolved;
     }
 
+    void addField(final MutableFieldInfo field) {
+        if (this.fields == null)
+            this.fields = new LinkedHashMap<>();
+        this.fields.put(field.getName(), field);
+    }
+
+    void addMethod(final MutableMethodInfo method) {
+        if (this.methods == null) {
+            this.methods = new LinkedHashMap<>();
+            this.methodsByKey = new LongObjectMap<>();
+            this.methodsByDesc = new LongObjectMap<>();
+        }
+        this.methods.put(method.getMethod().getName() + method.getMethod().getDesc(), method);
+        this.methodsByKey.put(method.getKey(), method);
+        addToIndex(this.methodsByDesc, symbols.intern(method.getMethod().getDesc()), method);
+
+        if (method.getBouncer() != null) {
+            final MutableMethodReferenceInfo target = method.getBouncer().getTarget();
+            if (this.bouncersByTarget == null)
+                this.bouncersByTarget = new LongObjectMap<>();
+            addToIndex(this.bouncersByTarget, symbols.methodKey(target.getName(), target.getDesc()), method);
+        }
+    }
+
+    private static void addToIndex(final LongObjectMap<List<MutableMethodInfo>> index, final long key, final MutableMethodInfo method) {
+        List<MutableMethodInfo> methods = index.get(key);
+        if (methods == null) {
+            methods = new ArrayList<>(1);
+            index.put(key, methods);
+        }
+        methods.add(method);
+    }
+
     public void addRecord(final String name, final String desc) {
         this.records.put(name, new MutableRecordInfo(name, desc));
     }
@@ -1,7 +1,5 @@
 package org.parchmentmc.lodestone.asm;
 
-import org.objectweb.asm.tree.FieldNode;
-
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -12,11 +10,11 @@ public class MutableFieldInfo implements MutableSecuredObjectInfo {
     private final String signature;
     private final Set<MutableMethodReferenceInfo> getters = new LinkedHashSet<>();
 
-    MutableFieldInfo(final MutableClassInfo classInfo, final FieldNode node) {
-        this.name = node.name;
-        this.desc = node.desc;
-        this.access = node.access == 0 ? null : node.access;
-        this.signature = node.signature;
+    MutableFieldInfo(final MutableClassInfo classInfo, final String name, final String desc, final int access, final String signature) {
+        this.name = name;
+        this.desc = desc;
+        this.access = access == 0 ? null : access;
+        this.signature = signature;
 
         if (classInfo.isRecord() && !this.isStatic() && this.isFinal()) {
             classInfo.addRecord(this.name, this.desc);
@@ -1,16 +1,20 @@
 package org.parchmentmc.lodestone.asm;
 
+import java.util.Objects;
+
 public class MutableMethodReferenceInfo implements Comparable<MutableMethodReferenceInfo> {
     private final String owner;
     private final String name;
     private final String desc;
     private final String signature;
+    private final int hash;
 
     MutableMethodReferenceInfo(String owner, String name, String desc, String signature) {
         this.owner = owner;
         this.name = name;
         this.desc = desc;
         this.signature = signature;
+        this.hash = this.toString().hashCode();
     }
 
     public String getOwner() {
@@ -36,12 +40,18 @@ public class MutableMethodReferenceInfo implements Comparable<MutableMethodRefer
 
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return hash;
     }
 
     @Override
     public boolean equals(Object o) {
-        return o instanceof MutableMethodReferenceInfo && o.toString().equals(toString());
+        if (this == o)
+            return true;
+        if (!(o instanceof MutableMethodReferenceInfo))
+            return false;
+
+        final MutableMethodReferenceInfo other = (MutableMethodReferenceInfo) o;
+        return hash == other.hash && Objects.equals(owner, other.owner) && Objects.equals(name, other.name) && Objects.equals(desc, other.desc);
     }
 
     private int compare(int a, int b) {
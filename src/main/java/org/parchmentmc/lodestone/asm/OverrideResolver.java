@@ -0,0 +1,415 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the overridden methods and the parent method of methods in an {@link InheritanceGraph}.
+ * <p>
+ * Both are found by walking up the hierarchy from the class declaring a method, following bouncers to the methods
+ * they bounce to. Every walk from a given class for a given method is only done once: its result is remembered and
+ * reused by every subclass looking for the same method, so shared supertypes are no longer walked again for each
+ * method of each subclass. The walks keep their own stack, so they neither depend on the depth of the hierarchy nor
+ * loop forever on a circular one.
+ * <p>
+ * The overrides found in a supertype depend on the overrides already assigned to its methods, which
+ * {@link CodeCleaner} may still extend while resolving abstract methods. Whenever that happens
+ * {@link #overridesChanged()} must be called, which drops the remembered overrides. The overrides therefore depend
+ * on the order in which classes are cleaned, and must only be resolved from a single thread. Parents and whether a
+ * method overrides anything at all only depend on the hierarchy itself, and may be resolved from multiple threads.
+ */
+class OverrideResolver {
+    private static final MutableMethodReferenceInfo NO_PARENT = new MutableMethodReferenceInfo("", "", "", null);
+
+    private final InheritanceGraph graph;
+
+    private final MethodCache<List<MutableMethodReferenceInfo>> declaredOverrides;
+    private final MethodCache<List<MutableMethodReferenceInfo>> inheritedOverrides;
+    private final MethodCache<Boolean> declaredOverridesAny;
+    private final MethodCache<Boolean> inheritedOverridesAny;
+    private final MethodCache<MutableMethodReferenceInfo> declaredParents;
+    private final MethodCache<MutableMethodReferenceInfo> inheritedParents;
+    private final OverridesSearch overridesSearch;
+    private final OverridesAnySearch overridesAnySearch;
+    private final ParentSearch parentSearch;
+    private boolean overridesChanged = false;
+
+    OverrideResolver(final InheritanceGraph graph) {
+        this.graph = graph;
+        this.declaredOverrides = new MethodCache<>(graph.size());
+        this.inheritedOverrides = new MethodCache<>(graph.size());
+        this.declaredOverridesAny = new MethodCache<>(graph.size());
+        this.inheritedOverridesAny = new MethodCache<>(graph.size());
+        this.declaredParents = new MethodCache<>(graph.size());
+        this.inheritedParents = new MethodCache<>(graph.size());
+        this.overridesSearch = new OverridesSearch();
+        this.overridesAnySearch = new OverridesAnySearch();
+        this.parentSearch = new ParentSearch();
+    }
+
+    /**
+     * Finds the methods the given method overrides.
+     *
+     * @param method The method.
+     * @return A new set of the overridden methods, in the order they were found.
+     */
+    Set<MutableMethodReferenceInfo> findOverrides(final MutableMethodInfo method) {
+        return new LinkedHashSet<>(getOverrides(method));
+    }
+
+    /**
+     * Gets the methods the given method overrides, without copying them.
+     *
+     * @param method The method.
+     * @return The overridden methods, in the order they were found.
+     */
+    List<MutableMethodReferenceInfo> getOverrides(final MutableMethodInfo method) {
+        if (overridesChanged) {
+            declaredOverrides.clear();
+            inheritedOverrides.clear();
+            overridesChanged = false;
+        }
+        final int id = graph.getId(method.getMutableClassInfo().getName());
+        return id < 0 ? Collections.emptyList() : declaredOverrides(id, method);
+    }
+
+    /**
+     * Checks whether the given method overrides anything, without resolving what it overrides.
+     * <p>
+     * This is the case exactly when {@link #getOverrides(MutableMethodInfo)} is not empty, regardless of the order in
+     * which the classes are cleaned.
+     *
+     * @param method The method.
+     * @return {@code true} if the method overrides at least one method.
+     */
+    boolean overridesAnything(final MutableMethodInfo method) {
+        final int id = graph.getId(method.getMutableClassInfo().getName());
+        return id >= 0 && declaredOverridesAny(id, method);
+    }
+
+    /**
+     * Finds the first method in a game class which the given method overrides.
+     *
+     * @param method The method.
+     * @return The parent method, or {@code null} if there is none.
+     */
+    MutableMethodReferenceInfo findParent(final MutableMethodInfo method) {
+        final int id = graph.getId(method.getMutableClassInfo().getName());
+        final MutableMethodReferenceInfo parent = id < 0 ? NO_PARENT : declaredParent(id, method);
+        return parent == NO_PARENT ? null : parent;
+    }
+
+    /**
+     * Signals that the overrides of an already resolved method have been changed.
+     */
+    void overridesChanged() {
+        overridesChanged = true;
+    }
+
+    private static boolean canOverride(final MutableMethodInfo method) {
+        return !method.isStatic() && !method.isPrivate() && !method.getMethod().getName().startsWith("<");
+    }
+
+    /**
+     * The overrides of a method, searched for from the class declaring it.
+     */
+    private List<MutableMethodReferenceInfo> declaredOverrides(final int id, final MutableMethodInfo method) {
+        return overridesSearch.search(id, method);
+    }
+
+    /**
+     * Whether a method overrides anything, searched for from the class declaring it.
+     */
+    private boolean declaredOverridesAny(final int id, final MutableMethodInfo method) {
+        return overridesAnySearch.search(id, method);
+    }
+
+    /**
+     * The parent of a method, searched for from the class declaring it.
+     */
+    private MutableMethodReferenceInfo declaredParent(final int id, final MutableMethodInfo method) {
+        return parentSearch.search(id, method);
+    }
+
+    /**
+     * Collects the overrides of a method. The methods in a class come after the overrides of the bouncers to them
+     * in that class, and before the overrides found in its supertypes.
+     */
+    private final class OverridesSearch extends Search<List<MutableMethodReferenceInfo>, Set<MutableMethodReferenceInfo>> {
+        private OverridesSearch() {
+            super(declaredOverrides, inheritedOverrides, Collections.emptyList());
+        }
+
+        @Override
+        Set<MutableMethodReferenceInfo> begin(final int id, final MutableMethodInfo method, final boolean declared) {
+            return new LinkedHashSet<>();
+        }
+
+        @Override
+        void bouncersSearched(final int id, final MutableMethodInfo method, final boolean declared, final Set<MutableMethodReferenceInfo> overrides) {
+            //The method itself is skipped, it can not override itself.
+            if (declared)
+                return;
+
+            final MutableClassInfo classMetadata = graph.getClassInfo(id);
+            final MutableMethodInfo ownerMethodMetadata = classMetadata.getMethod(method.getKey());
+            if (ownerMethodMetadata != null && !ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()) {
+                if (ownerMethodMetadata.getOverrides().isEmpty()) {
+                    overrides.add(
+                            new MutableMethodReferenceInfo(
+                                    classMetadata.getName(),
+                                    ownerMethodMetadata.getMethod().getName(),
+                                    ownerMethodMetadata.getMethod().getDesc(),
+                                    ownerMethodMetadata.getSignature()
+                            ));
+                } else {
+                    overrides.addAll(ownerMethodMetadata.getOverrides());
+                }
+            }
+        }
+
+        @Override
+        Set<MutableMethodReferenceInfo> accept(final Set<MutableMethodReferenceInfo> overrides, final List<MutableMethodReferenceInfo> found) {
+            overrides.addAll(found);
+            return overrides;
+        }
+
+        @Override
+        List<MutableMethodReferenceInfo> finish(final Set<MutableMethodReferenceInfo> overrides) {
+            return overrides.isEmpty() ? Collections.emptyList() : new ArrayList<>(overrides);
+        }
+    }
+
+    /**
+     * Checks whether a method overrides anything. Any overridable method found adds either itself or its own
+     * overrides, so finding one is enough.
+     */
+    private final class OverridesAnySearch extends Search<Boolean, Boolean> {
+        private OverridesAnySearch() {
+            super(declaredOverridesAny, inheritedOverridesAny, false);
+        }
+
+        @Override
+        Boolean begin(final int id, final MutableMethodInfo method, final boolean declared) {
+            if (declared)
+                return false;
+
+            final MutableMethodInfo ownerMethodMetadata = graph.getClassInfo(id).getMethod(method.getKey());
+            return ownerMethodMetadata != null && !ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate();
+        }
+
+        @Override
+        boolean isDone(final Boolean found) {
+            return found;
+        }
+
+        @Override
+        Boolean accept(final Boolean found, final Boolean superFound) {
+            return found || superFound;
+        }
+
+        @Override
+        Boolean finish(final Boolean found) {
+            return found;
+        }
+    }
+
+    /**
+     * Finds the first overridable method in a game class. A method in a class is checked before the bouncers to it in
+     * that class.
+     */
+    private final class ParentSearch extends Search<MutableMethodReferenceInfo, MutableMethodReferenceInfo> {
+        private ParentSearch() {
+            super(declaredParents, inheritedParents, NO_PARENT);
+        }
+
+        @Override
+        MutableMethodReferenceInfo begin(final int id, final MutableMethodInfo method, final boolean declared) {
+            //The method itself is skipped, it can not be its own parent.
+            if (declared)
+                return NO_PARENT;
+
+            final MutableClassInfo ownerInfo = graph.getClassInfo(id);
+            final MutableMethodInfo methodInOwner = ownerInfo.getMethod(method.getKey());
+            if (graph.isGameClass(id) && methodInOwner != null && (methodInOwner.getAccess() & (Opcodes.ACC_FINAL | Opcodes.ACC_PRIVATE)) == 0) {
+                return new MutableMethodReferenceInfo(
+                        ownerInfo.getName(),
+                        methodInOwner.getMethod().getName(),
+                        methodInOwner.getMethod().getDesc(),
+                        methodInOwner.getSignature()
+                );
+            }
+            return NO_PARENT;
+        }
+
+        @Override
+        boolean isDone(final MutableMethodReferenceInfo parent) {
+            return parent != NO_PARENT;
+        }
+
+        @Override
+        MutableMethodReferenceInfo accept(final MutableMethodReferenceInfo parent, final MutableMethodReferenceInfo superParent) {
+            return superParent;
+        }
+
+        @Override
+        MutableMethodReferenceInfo finish(final MutableMethodReferenceInfo parent) {
+            return parent;
+        }
+    }
+
+    /**
+     * A search up the hierarchy from a method, run with an explicit stack instead of recursion.
+     * <p>
+     * A search from a class is either declared, starting at the class declaring the method, or inherited, starting at
+     * a supertype of it. Its result is made up of its own findings, the declared searches for the bouncers to the
+     * method in the class, and the inherited searches from the direct supertypes of the class, in that order. Every
+     * search is only done once and remembered per class and method, so a supertype reached through multiple paths is
+     * not searched again. A search which is already on the stack, in a circular hierarchy or a circular chain of
+     * bouncers, counts as having found nothing.
+     *
+     * @param <T> The type of the result.
+     * @param <A> The type of the partial result, while the search is running.
+     */
+    private abstract class Search<T, A> {
+        private final MethodCache<T> declaredResults;
+        private final MethodCache<T> inheritedResults;
+        private final T empty;
+
+        private Search(final MethodCache<T> declaredResults, final MethodCache<T> inheritedResults, final T empty) {
+            this.declaredResults = declaredResults;
+            this.inheritedResults = inheritedResults;
+            this.empty = empty;
+        }
+
+        /**
+         * Starts a search with what is found in the class itself before looking at the bouncers.
+         */
+        abstract A begin(int id, MutableMethodInfo method, boolean declared);
+
+        /**
+         * Adds what is found in the class itself after looking at the bouncers, before looking at the supertypes.
+         */
+        void bouncersSearched(final int id, final MutableMethodInfo method, final boolean declared, final A partial) {
+        }
+
+        /**
+         * @return {@code true} if nothing more can change the result.
+         */
+        boolean isDone(final A partial) {
+            return false;
+        }
+
+        abstract A accept(A partial, T found);
+
+        abstract T finish(A partial);
+
+        /**
+         * Runs the declared search for the given method.
+         */
+        T search(final int id, final MutableMethodInfo method) {
+            if (!canOverride(method))
+                return empty;
+
+            final T cached = declaredResults.get(id, method.getKey());
+            if (cached != null)
+                return cached;
+
+            final List<Frame<A>> stack = new ArrayList<>();
+            stack.add(newFrame(id, method, true));
+            while (true) {
+                final Frame<A> frame = stack.get(stack.size() - 1);
+                final Frame<A> next = advance(stack, frame);
+                if (next != null) {
+                    stack.add(next);
+                    continue;
+                }
+
+                stack.remove(stack.size() - 1);
+                final T result = (frame.declared ? declaredResults : inheritedResults).put(frame.id, frame.method.getKey(), finish(frame.partial));
+                if (stack.isEmpty())
+                    return result;
+
+                final Frame<A> parent = stack.get(stack.size() - 1);
+                parent.partial = accept(parent.partial, result);
+            }
+        }
+
+        /**
+         * Feeds the known results of the next searches the frame depends on to it.
+         *
+         * @return The next search which still needs to be run, or {@code null} if the frame is complete.
+         */
+        private Frame<A> advance(final List<Frame<A>> stack, final Frame<A> frame) {
+            final int bouncerCount = frame.bouncers.size();
+            while (!isDone(frame.partial)) {
+                final int index = frame.next++;
+                final Frame<A> next;
+                if (index < bouncerCount) {
+                    next = dependency(stack, frame, frame.id, frame.bouncers.get(index), true);
+                } else if (index == bouncerCount) {
+                    bouncersSearched(frame.id, frame.method, frame.declared, frame.partial);
+                    continue;
+                } else if (index - bouncerCount - 1 < graph.getSuperTypeCount(frame.id)) {
+                    next = dependency(stack, frame, graph.getSuperType(frame.id, index - bouncerCount - 1), frame.method, false);
+                } else {
+                    break;
+                }
+
+                if (next != null)
+                    return next;
+            }
+            return null;
+        }
+
+        private Frame<A> dependency(final List<Frame<A>> stack, final Frame<A> frame, final int id, final MutableMethodInfo method, final boolean declared) {
+            T found = empty;
+            if (!declared || canOverride(method)) {
+                found = (declared ? declaredResults : inheritedResults).get(id, method.getKey());
+                if (found == null) {
+                    //A supertype can only be on the stack already if the hierarchy leads back to it.
+                    if ((!declared && !graph.isSubtypeOf(id, id)) || !isOnStack(stack, id, method.getKey(), declared))
+                        return newFrame(id, method, declared);
+                    found = empty;
+                }
+            }
+
+            frame.partial = accept(frame.partial, found);
+            return null;
+        }
+
+        private Frame<A> newFrame(final int id, final MutableMethodInfo method, final boolean declared) {
+            return new Frame<>(id, method, declared, graph.getClassInfo(id).getBouncersTo(method.getKey()), begin(id, method, declared));
+        }
+
+        private boolean isOnStack(final List<Frame<A>> stack, final int id, final long key, final boolean declared) {
+            for (Frame<A> frame : stack) {
+                if (frame.id == id && frame.declared == declared && frame.method.getKey() == key)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Frame<A> {
+        private final int id;
+        private final MutableMethodInfo method;
+        private final boolean declared;
+        private final List<MutableMethodInfo> bouncers;
+        private int next = 0;
+        private A partial;
+
+        private Frame(final int id, final MutableMethodInfo method, final boolean declared, final List<MutableMethodInfo> bouncers, final A partial) {
+            this.id = id;
+            this.method = method;
+            this.declared = declared;
+            this.bouncers = bouncers;
+            this.partial = partial;
+        }
+    }
+}
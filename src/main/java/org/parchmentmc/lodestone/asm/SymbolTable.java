@@ -0,0 +1,32 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns the names and descriptors of a {@link CodeTree} into dense int ids.
+ * <p>
+ * A method is identified by its name and descriptor ids packed into a single long, so looking a method up in the
+ * hierarchy never needs to build or hash a concatenated string. This is safe to use from multiple threads.
+ */
+public class SymbolTable {
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int intern(final String symbol) {
+        final Integer id = ids.get(symbol);
+        if (id != null)
+            return id;
+
+        return ids.computeIfAbsent(symbol, s -> nextId.getAndIncrement());
+    }
+
+    public long methodKey(final String name, final String desc) {
+        return pack(intern(name), intern(desc));
+    }
+
+    public static long pack(final int nameId, final int descId) {
+        return ((long) nameId << 32) | (descId & 0xFFFFFFFFL);
+    }
+}
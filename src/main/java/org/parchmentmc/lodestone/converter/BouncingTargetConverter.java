@@ -5,9 +5,9 @@ import org.parchmentmc.feather.metadata.BouncingTargetMetadataBuilder;
 import org.parchmentmc.lodestone.asm.MutableBouncerInfo;
 
 public class BouncingTargetConverter {
-    public BouncingTargetMetadata convert(final MutableBouncerInfo bouncerInfo) {
-        final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
+    private final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
 
+    public BouncingTargetMetadata convert(final MutableBouncerInfo bouncerInfo) {
         if (bouncerInfo == null)
             return null;
 
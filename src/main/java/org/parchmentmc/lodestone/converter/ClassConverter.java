@@ -2,27 +2,35 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.ClassMetadata;
 import org.parchmentmc.feather.metadata.ClassMetadataBuilder;
+import org.parchmentmc.feather.named.Named;
 import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 
+/**
+ * Converts parsed classes into class metadata.
+ * <p>
+ * The converters do not hold any state, so a single instance can convert any number of classes from multiple threads.
+ */
 public class ClassConverter {
+    private final MethodConverter methodConverter = new MethodConverter();
+    private final FieldConverter fieldConverter = new FieldConverter();
+    private final RecordConverter recordConverter = new RecordConverter();
 
     public ClassMetadata convert(final MutableClassInfo classInfo) {
-        final MethodConverter methodConverter = new MethodConverter();
-        final FieldConverter fieldConverter = new FieldConverter();
-        final RecordConverter recordConverter = new RecordConverter();
+        //The name of the class is shared by all its members as their owner.
+        final Named name = NamedBuilder.create().withObfuscated(classInfo.getName()).build();
 
         final ClassMetadataBuilder classMetadataBuilder = ClassMetadataBuilder.create()
-                .withName(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
+                .withName(name)
                 .withSuperName(NamedBuilder.create().withObfuscated(classInfo.getSuperName()).build())
                 .withSecuritySpecifications(classInfo.getAccess())
                 .withSignature(NamedBuilder.create().withObfuscated(classInfo.getSignature()).build())
                 .withInterfaces(classInfo.getInterfaces().stream().map(interfaceName -> NamedBuilder.create().withObfuscated(interfaceName).build()).collect(CollectorUtils.toLinkedSet()))
-                .withFields(classInfo.getFields().values().stream().map(fieldInfo -> fieldConverter.convert(classInfo, fieldInfo)).collect(CollectorUtils.toLinkedSet()))
-                .withMethods(classInfo.getMethods().values().stream().map(methodInfo -> methodConverter.convert(classInfo, methodInfo)).collect(CollectorUtils.toLinkedSet()))
+                .withFields(classInfo.getFields().values().stream().map(fieldInfo -> fieldConverter.convert(name, fieldInfo)).collect(CollectorUtils.toLinkedSet()))
+                .withMethods(classInfo.getMethods().values().stream().map(methodInfo -> methodConverter.convert(name, methodInfo)).collect(CollectorUtils.toLinkedSet()))
                 .withRecords(
-                        classInfo.getRecords().values().stream().map(recordInfo -> recordConverter.convert(classInfo, recordInfo)).collect(CollectorUtils.toLinkedSet())
+                        classInfo.getRecords().values().stream().map(recordInfo -> recordConverter.convert(name, recordInfo)).collect(CollectorUtils.toLinkedSet())
                 )
                 .withIsRecord(classInfo.isRecord());
 
@@ -2,18 +2,23 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.FieldMetadata;
 import org.parchmentmc.feather.metadata.FieldMetadataBuilder;
+import org.parchmentmc.feather.named.Named;
 import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 import org.parchmentmc.lodestone.asm.MutableFieldInfo;
 
 public class FieldConverter {
     public FieldMetadata convert(final MutableClassInfo classInfo, final MutableFieldInfo fieldInfo) {
+        return convert(NamedBuilder.create().withObfuscated(classInfo.getName()).build(), fieldInfo);
+    }
+
+    public FieldMetadata convert(final Named owner, final MutableFieldInfo fieldInfo) {
         return FieldMetadataBuilder.create()
                 .withName(NamedBuilder.create().withObfuscated(fieldInfo.getName()).build())
                 .withDescriptor(NamedBuilder.create().withObfuscated(fieldInfo.getDesc()).build())
                 .withSignature(NamedBuilder.create().withObfuscated(fieldInfo.getSignature()).build())
                 .withSecuritySpecification(fieldInfo.getAccess())
-                .withOwner(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
+                .withOwner(owner)
                 .build();
     }
 }
@@ -2,19 +2,24 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.MethodMetadata;
 import org.parchmentmc.feather.metadata.MethodMetadataBuilder;
+import org.parchmentmc.feather.named.Named;
 import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 import org.parchmentmc.lodestone.asm.MutableMethodInfo;
 
 public class MethodConverter {
+    private final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
+    private final BouncingTargetConverter bouncingTargetConverter = new BouncingTargetConverter();
+
     public MethodMetadata convert(final MutableClassInfo classInfo, final MutableMethodInfo mutableMethodInfo) {
-        final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
-        final BouncingTargetConverter bouncingTargetConverter = new BouncingTargetConverter();
+        return convert(NamedBuilder.create().withObfuscated(classInfo.getName()).build(), mutableMethodInfo);
+    }
 
+    public MethodMetadata convert(final Named owner, final MutableMethodInfo mutableMethodInfo) {
         return MethodMetadataBuilder.create()
                 .withName(NamedBuilder.create().withObfuscated(mutableMethodInfo.getMethod().getName()).build())
-                .withOwner(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
+                .withOwner(owner)
                 .withDescriptor(NamedBuilder.create().withObfuscated(mutableMethodInfo.getMethod().getDesc()).build())
                 .withSignature(NamedBuilder.create().withObfuscated(mutableMethodInfo.getSignature()).build())
                 .withSecuritySpecification(mutableMethodInfo.getAccess())
@@ -13,12 +13,15 @@ import org.parchmentmc.lodestone.asm.MutableRecordInfo;
 import java.util.Iterator;
 
 public class RecordConverter {
+    private final ReferenceConverter referenceConverter = new ReferenceConverter();
+
     public RecordMetadata convert(final MutableClassInfo classInfo, final MutableRecordInfo recordInfo) {
-        final ReferenceConverter referenceConverter = new ReferenceConverter();
+        return convert(NamedBuilder.create().withObfuscated(classInfo.getName()).build(), recordInfo);
+    }
 
+    public RecordMetadata convert(final Named owner, final MutableRecordInfo recordInfo) {
         final MutableMethodReferenceInfo mutableMethodReferenceInfo = getGetter(recordInfo);
 
-        final Named owner = NamedBuilder.create().withObfuscated(classInfo.getName()).build();
         return RecordMetadataBuilder.create()
                 .withOwner(owner)
                 .withField(
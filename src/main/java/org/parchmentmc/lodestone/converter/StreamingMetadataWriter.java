@@ -0,0 +1,174 @@
+package org.parchmentmc.lodestone.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import org.parchmentmc.feather.metadata.ClassMetadata;
+import org.parchmentmc.feather.metadata.ClassMetadataBuilder;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.metadata.SourceMetadataBuilder;
+import org.parchmentmc.feather.util.SimpleVersion;
+import org.parchmentmc.lodestone.asm.MutableClassInfo;
+import org.parchmentmc.lodestone.util.BinaryMetadataWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the metadata of parsed classes, converting and writing a batch of top level classes at a time instead of
+ * building the metadata of all classes up front.
+ * <p>
+ * Inner classes are nested into the class named by everything before the last {@code $} in their name, in the order
+ * of the given classes. Inner classes whose outer class is not one of the given classes are left out. As JSON every
+ * class is written by the metadata adapters of the given Gson instance, so the output is exactly the same as writing
+ * the complete metadata at once. Those adapters have to write the classes as a list of their own, next to the other
+ * members of the metadata.
+ */
+public class StreamingMetadataWriter {
+    private static final int BATCH_SIZE = 256;
+
+    private final ClassConverter classConverter = new ClassConverter();
+    private final SimpleVersion specVersion;
+    private final String minecraftVersion;
+    private final List<MutableClassInfo> topLevelClasses = new ArrayList<>();
+    private final Map<String, List<MutableClassInfo>> innerClasses = new HashMap<>();
+
+    public StreamingMetadataWriter(final SimpleVersion specVersion, final String minecraftVersion, final Collection<MutableClassInfo> classes) {
+        this.specVersion = specVersion;
+        this.minecraftVersion = minecraftVersion;
+
+        final Map<String, MutableClassInfo> classesByName = new LinkedHashMap<>();
+        for (MutableClassInfo info : classes) {
+            classesByName.putIfAbsent(info.getName(), info);
+        }
+
+        for (MutableClassInfo info : classesByName.values()) {
+            final String outerName = getOuterName(info.getName());
+            if (outerName.isEmpty()) {
+                topLevelClasses.add(info);
+            } else if (classesByName.containsKey(outerName)) {
+                innerClasses.computeIfAbsent(outerName, name -> new ArrayList<>()).add(info);
+            }
+        }
+    }
+
+    /**
+     * Writes the metadata as JSON, using the metadata adapters of the given Gson instance.
+     *
+     * @throws IllegalStateException If the adapters do not write the classes as a list of their own.
+     */
+    public void writeJson(final Gson gson, final JsonWriter writer) throws IOException {
+        final SourceMetadataBuilder sourceMetadata = SourceMetadataBuilder.create()
+                .withSpecVersion(specVersion)
+                .withMinecraftVersion(minecraftVersion);
+        if (topLevelClasses.isEmpty()) {
+            writeAtOnce(gson, writer, sourceMetadata, Collections.emptyList());
+            return;
+        }
+
+        //The layout of the document around the classes is left to the adapters: it is taken from a document holding
+        //only the first class, whose list of classes is then replaced by all of them.
+        final List<ClassMetadata> firstBatch = convert(0);
+        final SourceMetadata firstClassOnly = sourceMetadata.withClasses(new LinkedHashSet<>(firstBatch.subList(0, 1))).build();
+        final JsonObject document = gson.toJsonTree(firstClassOnly, firstClassOnly.getClass()).getAsJsonObject();
+        final JsonArray firstClass = new JsonArray();
+        firstClass.add(gson.toJsonTree(firstBatch.get(0), ClassMetadata.class));
+
+        String classesName = null;
+        for (Entry<String, JsonElement> entry : document.entrySet()) {
+            if (entry.getValue().equals(firstClass))
+                classesName = entry.getKey();
+        }
+        if (classesName == null)
+            throw new IllegalStateException("The metadata adapter of " + firstClassOnly.getClass().getName() + " does not write the classes as a list of their own");
+
+        writer.beginObject();
+        for (Entry<String, JsonElement> entry : document.entrySet()) {
+            writer.name(entry.getKey());
+            if (!entry.getKey().equals(classesName)) {
+                gson.toJson(entry.getValue(), writer);
+                continue;
+            }
+
+            writer.beginArray();
+            List<ClassMetadata> batch = firstBatch;
+            for (int start = 0; start < topLevelClasses.size(); start += BATCH_SIZE) {
+                if (start > 0)
+                    batch = convert(start);
+                for (ClassMetadata classMetadata : batch) {
+                    gson.toJson(classMetadata, ClassMetadata.class, writer);
+                }
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Converts all classes at once, nested the same way as they are written.
+     *
+     * @return The complete metadata.
+     */
+    public SourceMetadata createSourceMetadata() {
+        final LinkedHashSet<ClassMetadata> classes = new LinkedHashSet<>();
+        for (int start = 0; start < topLevelClasses.size(); start += BATCH_SIZE) {
+            classes.addAll(convert(start));
+        }
+        return SourceMetadataBuilder.create()
+                .withSpecVersion(specVersion)
+                .withMinecraftVersion(minecraftVersion)
+                .withClasses(classes)
+                .build();
+    }
+
+    /**
+     * Writes the metadata in the format of {@link BinaryMetadataWriter}, without closing the stream.
+     */
+    public void writeBinary(final OutputStream output) throws IOException {
+        final BinaryMetadataWriter writer = new BinaryMetadataWriter(output, specVersion, minecraftVersion);
+        for (int start = 0; start < topLevelClasses.size(); start += BATCH_SIZE) {
+            for (ClassMetadata classMetadata : convert(start)) {
+                writer.writeClass(classMetadata);
+            }
+        }
+        writer.finish();
+    }
+
+    private static String getOuterName(final String name) {
+        return name.contains("$") ? name.substring(0, name.lastIndexOf("$")) : "";
+    }
+
+    private static void writeAtOnce(final Gson gson, final JsonWriter writer, final SourceMetadataBuilder sourceMetadata, final List<ClassMetadata> classes) {
+        final SourceMetadata result = sourceMetadata.withClasses(new LinkedHashSet<>(classes)).build();
+        gson.toJson(result, result.getClass(), writer);
+    }
+
+    /**
+     * Converts a batch of top level classes with all their inner classes, in parallel.
+     */
+    private List<ClassMetadata> convert(final int start) {
+        return topLevelClasses.subList(start, Math.min(start + BATCH_SIZE, topLevelClasses.size())).parallelStream()
+                .map(info -> createBuilder(info).build())
+                .collect(Collectors.toList());
+    }
+
+    private ClassMetadataBuilder createBuilder(final MutableClassInfo info) {
+        final ClassMetadataBuilder builder = ClassMetadataBuilder.create(classConverter.convert(info));
+        for (MutableClassInfo innerClass : innerClasses.getOrDefault(info.getName(), Collections.emptyList())) {
+            builder.addInnerClass(createBuilder(innerClass));
+        }
+        return builder;
+    }
+}
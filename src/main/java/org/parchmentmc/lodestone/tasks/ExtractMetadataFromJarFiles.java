@@ -1,105 +1,91 @@
 package org.parchmentmc.lodestone.tasks;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.tasks.InputDirectory;
-import org.parchmentmc.feather.metadata.*;
-import org.parchmentmc.feather.named.Named;
+import org.gradle.api.tasks.Internal;
+import org.parchmentmc.feather.metadata.SourceMetadata;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.feather.util.SimpleVersion;
 import org.parchmentmc.lodestone.asm.CodeCleaner;
 import org.parchmentmc.lodestone.asm.CodeTree;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
-import org.parchmentmc.lodestone.converter.ClassConverter;
+import org.parchmentmc.lodestone.converter.StreamingMetadataWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 public abstract class ExtractMetadataFromJarFiles extends ExtractMetadataTask {
+    private static final SimpleVersion SPEC_VERSION = SimpleVersion.of("1.0.0");
+
     public ExtractMetadataFromJarFiles() {
-        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).map(d -> d.file("metadata.json")));
+        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).flatMap(d -> d.file(this.getFormat().zip(this.getCompress(), (f, c) -> "metadata" + f.getExtension() + (c ? ".gz" : "")))));
+        this.getLibraryIndexDirectory().convention(getProject().getLayout().dir(getProject().provider(() ->
+                new File(getProject().getGradle().getGradleUserHomeDir(), "caches/lodestone/library-index"))));
     }
 
     @Override
     protected SourceMetadata extractMetadata(File clientJarFile) throws IOException {
-        final File librariesDirectory = this.getLibraries().getAsFile().get();
+        final Map<String, MutableClassInfo> asmParsedClassInfo = parseAndCleanClasses(clientJarFile);
 
-        final CodeTree codeTree = new CodeTree();
-        codeTree.load(clientJarFile.toPath(), false);
+        return new StreamingMetadataWriter(SPEC_VERSION, getMcVersion().get(), asmParsedClassInfo.values()).createSourceMetadata();
+    }
 
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("regex:.+\\.jar");
-        try (Stream<Path> libraries = Files.find(librariesDirectory.toPath(), 999, (path, basicFileAttributes) -> basicFileAttributes.isRegularFile() && matcher.matches(path))) {
-            for (Path libraryFile : libraries.collect(CollectorUtils.toLinkedSet())) {
-                codeTree.load(libraryFile, true);
-            }
-        }
+    /**
+     * Writes the metadata straight from the cleaned classes, without holding the metadata of all classes in memory.
+     * The same goes for {@link #writeBinaryMetadata(File, OutputStream)}.
+     */
+    @Override
+    protected void writeMetadata(File clientJarFile, Gson gson, JsonWriter writer) throws IOException {
+        final Map<String, MutableClassInfo> asmParsedClassInfo = parseAndCleanClasses(clientJarFile);
 
-        final Set<String> minecraftJarClasses = codeTree.getNoneLibraryClasses();
-        final Map<String, MutableClassInfo> asmParsedClassInfo = minecraftJarClasses.stream().collect(CollectorUtils.toLinkedMap(
-                Function.identity(),
-                codeTree::getClassMetadataFor
-        ));
-
-        final CodeCleaner codeCleaner = new CodeCleaner(codeTree);
-        asmParsedClassInfo.values().forEach(codeCleaner::cleanClass);
-
-        final ClassConverter classConverter = new ClassConverter();
-        final Map<String, ClassMetadata> cleanedClassMetadata = minecraftJarClasses.stream().collect(CollectorUtils.toLinkedMap(
-                Function.identity(),
-                name -> {
-                    final MutableClassInfo classInfo = asmParsedClassInfo.get(name);
-                    return classConverter.convert(classInfo);
-                }
-        ));
-
-        final SourceMetadata baseDataSet = SourceMetadataBuilder.create()
-                .withSpecVersion(SimpleVersion.of("1.0.0"))
-                .withMinecraftVersion(getMcVersion().get())
-                .withClasses(new LinkedHashSet<>(cleanedClassMetadata.values()));
-
-        return adaptClassTypes(baseDataSet);
+        new StreamingMetadataWriter(SPEC_VERSION, getMcVersion().get(), asmParsedClassInfo.values()).writeJson(gson, writer);
     }
 
-    private static SourceMetadata adaptClassTypes(final SourceMetadata sourceMetadata) {
-        return adaptInnerOuterClassList(sourceMetadata);
+    @Override
+    protected void writeBinaryMetadata(File clientJarFile, OutputStream output) throws IOException {
+        final Map<String, MutableClassInfo> asmParsedClassInfo = parseAndCleanClasses(clientJarFile);
+
+        new StreamingMetadataWriter(SPEC_VERSION, getMcVersion().get(), asmParsedClassInfo.values()).writeBinary(output);
     }
 
-    private static SourceMetadata adaptInnerOuterClassList(final SourceMetadata sourceMetadata) {
-        final Map<Named, ClassMetadataBuilder> namedClassMetadataMap = sourceMetadata.getClasses()
-                .stream()
-                .collect(CollectorUtils.toLinkedMap(
-                        WithName::getName,
-                        ClassMetadataBuilder::create
-                ));
-
-        namedClassMetadataMap.values().forEach(classMetadata -> {
-            final Named outerName = classMetadata.getOwner();
-            if (namedClassMetadataMap.containsKey(outerName)) {
-                final ClassMetadataBuilder outerBuilder = namedClassMetadataMap.get(outerName);
-                outerBuilder.addInnerClass(classMetadata);
+    private Map<String, MutableClassInfo> parseAndCleanClasses(File clientJarFile) throws IOException {
+        final File librariesDirectory = this.getLibraries().getAsFile().get();
+
+        final Map<String, MutableClassInfo> asmParsedClassInfo;
+        final Path libraryIndexDirectory = this.getLibraryIndexDirectory().getAsFile().map(File::toPath).getOrNull();
+        try (CodeTree codeTree = new CodeTree(true, libraryIndexDirectory)) {
+            codeTree.load(clientJarFile.toPath(), false);
+
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("regex:.+\\.jar");
+            try (Stream<Path> libraries = Files.find(librariesDirectory.toPath(), 999, (path, basicFileAttributes) -> basicFileAttributes.isRegularFile() && matcher.matches(path))) {
+                codeTree.loadAll(libraries.collect(CollectorUtils.toLinkedSet()), true);
             }
-        });
-
-        return SourceMetadataBuilder.create()
-                .withSpecVersion(sourceMetadata.getSpecificationVersion())
-                .withMinecraftVersion(sourceMetadata.getMinecraftVersion())
-                .withClasses(namedClassMetadataMap.values()
-                        .stream()
-                        .filter(classMetadataBuilder -> classMetadataBuilder.getOwner().isEmpty())
-                        .map(ClassMetadataBuilder::build)
-                        .collect(CollectorUtils.toLinkedSet())
-                )
-                .build();
+
+            asmParsedClassInfo = codeTree.parseGameClasses();
+
+            final CodeCleaner codeCleaner = new CodeCleaner(codeTree);
+            codeCleaner.cleanClasses(asmParsedClassInfo.values());
+        }
+
+        return asmParsedClassInfo;
     }
 
     @InputDirectory
     public abstract DirectoryProperty getLibraries();
+
+    /**
+     * The directory in which the hierarchy indexes of library jars are cached, shared between all projects and
+     * Minecraft versions. Unset this to always read the library jars directly.
+     */
+    @Internal
+    public abstract DirectoryProperty getLibraryIndexDirectory();
 }
@@ -7,7 +7,7 @@ import java.io.File;
 
 public abstract class ExtractMetadataFromProguardFile extends ExtractMetadataTask {
     public ExtractMetadataFromProguardFile() {
-        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).map(d -> d.file("proguard.json")));
+        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).flatMap(d -> d.file(this.getFormat().zip(this.getCompress(), (f, c) -> "proguard" + f.getExtension() + (c ? ".gz" : "")))));
     }
 
     @Override
@@ -2,7 +2,10 @@ package org.parchmentmc.lodestone.tasks;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
@@ -10,12 +13,33 @@ import org.parchmentmc.feather.io.gson.SimpleVersionAdapter;
 import org.parchmentmc.feather.io.gson.metadata.MetadataAdapterFactory;
 import org.parchmentmc.feather.metadata.SourceMetadata;
 import org.parchmentmc.feather.util.SimpleVersion;
+import org.parchmentmc.lodestone.util.BinaryMetadataReader;
+import org.parchmentmc.lodestone.util.BinaryMetadataWriter;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public abstract class ExtractMetadataTask extends MinecraftVersionTask {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public ExtractMetadataTask() {
+        this.getPrettyPrint().convention(true);
+        this.getFormat().convention(MetadataFormat.JSON);
+        this.getCompress().convention(false);
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
     @TaskAction
     private void execute() throws IOException {
@@ -27,12 +51,40 @@ public abstract class ExtractMetadataTask extends MinecraftVersionTask {
 
         final File input = this.getInput().getAsFile().get();
 
-        SourceMetadata sourceMetadata = extractMetadata(input);
+        if (getFormat().get() == MetadataFormat.BINARY) {
+            try (OutputStream outputStream = openMetadataOutput(output, getCompress().get())) {
+                writeBinaryMetadata(input, outputStream);
+            }
+            return;
+        }
+
+        try (JsonWriter jsonWriter = createMetadataWriter(gson, output, getPrettyPrint().get(), getCompress().get())) {
+            writeMetadata(input, gson, jsonWriter);
+        }
+    }
+
+    /**
+     * Extracts the metadata from the given file and writes it, by default by writing the result of
+     * {@link #extractMetadata(File)}.
+     *
+     * @param inputFile The file to extract the metadata from.
+     * @param gson      The Gson instance from {@link #createMetadataGson()}.
+     * @param writer    The writer to write the metadata to.
+     */
+    protected void writeMetadata(File inputFile, Gson gson, JsonWriter writer) throws IOException {
+        final SourceMetadata sourceMetadata = extractMetadata(inputFile);
+        gson.toJson(sourceMetadata, sourceMetadata.getClass(), writer);
+    }
 
-        final FileWriter fileWriter = new FileWriter(output);
-        gson.toJson(sourceMetadata, fileWriter);
-        fileWriter.flush();
-        fileWriter.close();
+    /**
+     * Extracts the metadata from the given file and writes it with a {@link BinaryMetadataWriter}, by default by
+     * writing the result of {@link #extractMetadata(File)}.
+     *
+     * @param inputFile The file to extract the metadata from.
+     * @param output    The buffered stream to write the metadata to.
+     */
+    protected void writeBinaryMetadata(File inputFile, OutputStream output) throws IOException {
+        BinaryMetadataWriter.write(extractMetadata(inputFile), output);
     }
 
     protected static Gson createMetadataGson() {
@@ -44,6 +96,71 @@ public abstract class ExtractMetadataTask extends MinecraftVersionTask {
                 .create();
     }
 
+    /**
+     * Opens a buffered stream for a metadata file.
+     *
+     * @param output   The file to write to.
+     * @param compress Whether to compress the file with gzip while writing it.
+     * @return The stream, which finishes the compression and closes the file when closed.
+     */
+    static OutputStream openMetadataOutput(final File output, final boolean compress) throws IOException {
+        final OutputStream fileStream = Files.newOutputStream(output.toPath());
+        return new BufferedOutputStream(compress ? new GZIPOutputStream(fileStream, BUFFER_SIZE) : fileStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer for a metadata file.
+     *
+     * @param gson     The Gson instance from {@link #createMetadataGson()}.
+     * @param output   The file to write to.
+     * @param pretty   Whether to indent the output for human review, otherwise it is written without any whitespace.
+     * @param compress Whether to compress the file with gzip while writing it.
+     * @return The writer, which closes the file when closed.
+     */
+    static JsonWriter createMetadataWriter(final Gson gson, final File output, final boolean pretty, final boolean compress) throws IOException {
+        final JsonWriter jsonWriter = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(openMetadataOutput(output, compress), StandardCharsets.UTF_8), BUFFER_SIZE));
+        if (!pretty)
+            jsonWriter.setIndent("");
+        return jsonWriter;
+    }
+
+    /**
+     * Opens a buffered stream for a metadata file, decompressing it while reading if it is compressed with gzip.
+     *
+     * @param input The file to read.
+     * @return The stream.
+     */
+    static BufferedInputStream openMetadataInput(final File input) throws IOException {
+        final BufferedInputStream fileStream = new BufferedInputStream(Files.newInputStream(input.toPath()), BUFFER_SIZE);
+        try {
+            fileStream.mark(2);
+            final boolean compressed = fileStream.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF) && fileStream.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+            fileStream.reset();
+            return compressed ? new BufferedInputStream(new GZIPInputStream(fileStream, BUFFER_SIZE), BUFFER_SIZE) : fileStream;
+        } catch (IOException e) {
+            fileStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a metadata file in any of the {@link MetadataFormat}s, compressed or not.
+     *
+     * @param gson  The Gson instance from {@link #createMetadataGson()}.
+     * @param input The file to read.
+     * @return The metadata.
+     */
+    static SourceMetadata readMetadata(final Gson gson, final File input) throws IOException {
+        try (BufferedInputStream inputStream = openMetadataInput(input)) {
+            if (BinaryMetadataReader.isBinaryMetadata(inputStream))
+                return BinaryMetadataReader.read(inputStream);
+
+            final Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+            return gson.fromJson(reader, SourceMetadata.class);
+        }
+    }
+
     protected abstract SourceMetadata extractMetadata(File inputFile) throws IOException;
 
     @InputFile
@@ -51,4 +168,23 @@ public abstract class ExtractMetadataTask extends MinecraftVersionTask {
 
     @OutputFile
     public abstract RegularFileProperty getOutput();
+
+    /**
+     * Whether the output is indented for human review. Defaults to {@code true}, set it to {@code false} to write it
+     * without any whitespace, which is much smaller and faster to write and read again.
+     */
+    @Input
+    public abstract Property<Boolean> getPrettyPrint();
+
+    /**
+     * The format to write the output in. Defaults to {@link MetadataFormat#JSON}.
+     */
+    @Input
+    public abstract Property<MetadataFormat> getFormat();
+
+    /**
+     * Whether to compress the output with gzip while writing it. Defaults to {@code false}.
+     */
+    @Input
+    public abstract Property<Boolean> getCompress();
 }
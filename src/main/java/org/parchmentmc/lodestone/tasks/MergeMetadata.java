@@ -1,7 +1,10 @@
 package org.parchmentmc.lodestone.tasks;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
@@ -11,29 +14,44 @@ import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.feather.utils.MetadataMerger;
 import org.parchmentmc.lodestone.util.ASMRemapper;
+import org.parchmentmc.lodestone.util.MemberKey;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public abstract class MergeMetadata extends MinecraftVersionTask {
 
     public MergeMetadata() {
-        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).map(d -> d.file("merged.json")));
+        this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).flatMap(d -> d.file(this.getCompress().map(c -> c ? "merged.json.gz" : "merged.json"))));
+        this.getPrettyPrint().convention(true);
+        this.getCompress().convention(false);
     }
 
     @OutputFile
     public abstract RegularFileProperty getOutput();
 
-    private static SourceMetadata adaptTypes(final SourceMetadata sourceMetadata) {
+    /**
+     * Whether the output is indented for human review. Defaults to {@code true}, set it to {@code false} to write it
+     * without any whitespace.
+     */
+    @Input
+    public abstract Property<Boolean> getPrettyPrint();
+
+    /**
+     * Whether to compress the output with gzip while writing it. Defaults to {@code false}.
+     */
+    @Input
+    public abstract Property<Boolean> getCompress();
+
+    static SourceMetadata adaptTypes(final SourceMetadata sourceMetadata) {
         final Map<String, String> obfToMojClassNameMap = new LinkedHashMap<>();
-        final Map<String, MethodMetadata> obfKeyToMojMethodNameMap = new LinkedHashMap<>();
-        final Map<String, FieldMetadata> obfKeyToMojFieldNameMap = new LinkedHashMap<>();
+        final Map<MemberKey, MethodMetadata> obfKeyToMojMethodNameMap = new LinkedHashMap<>();
+        final Map<MemberKey, FieldMetadata> obfKeyToMojFieldNameMap = new LinkedHashMap<>();
         sourceMetadata.getClasses().forEach(classMetadata -> {
             collectClassNames(classMetadata, obfToMojClassNameMap);
             collectMethodNames(classMetadata, obfKeyToMojMethodNameMap);
@@ -46,201 +64,80 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
                 .withMinecraftVersion(sourceMetadata.getMinecraftVersion());
 
         // No need to retain insertion order, since this is only for lookup and not iterated over
-        final Map<String, String> obfToMojMethodNameMap = obfKeyToMojMethodNameMap.entrySet().stream().collect(Collectors.toMap(
+        final Map<MemberKey, String> obfToMojMethodNameMap = obfKeyToMojMethodNameMap.entrySet().stream().collect(Collectors.toMap(
                 Map.Entry::getKey,
                 e -> e.getValue().getName().getMojangName().orElseThrow(() -> new IllegalStateException("Missing mojang name"))
         ));
 
-        ASMRemapper remapper = new ASMRemapper(
+        final ASMRemapper remapper = new ASMRemapper(
                 obfToMojClassNameMap,
                 obfToMojMethodNameMap
         );
 
-        for (final ClassMetadata aClass : sourceMetadata.getClasses()) {
-            sourceMetadataBuilder.addClass(
-                    adaptSignatures(
-                            aClass,
-                            obfToMojClassNameMap,
-                            remapper
-                    )
-            );
-        }
-
-        final SourceMetadata signatureRemappedData = sourceMetadataBuilder.build();
-        obfToMojClassNameMap.clear();
-        obfKeyToMojMethodNameMap.clear();
-        obfKeyToMojFieldNameMap.clear();
-        signatureRemappedData.getClasses().forEach(classMetadata -> {
-            collectClassNames(classMetadata, obfToMojClassNameMap);
-            collectMethodNames(classMetadata, obfKeyToMojMethodNameMap);
-            collectFieldNames(classMetadata, obfKeyToMojFieldNameMap);
-        });
-
-        final SourceMetadataBuilder bouncerRemappedDataBuilder = SourceMetadataBuilder.create();
-
-        bouncerRemappedDataBuilder.withSpecVersion(sourceMetadata.getSpecificationVersion())
-                .withMinecraftVersion(sourceMetadata.getMinecraftVersion());
-
-        // No need to retain insertion order, since this is only for lookup and not iterated over
-        final Map<String, String> obfToMojMethodNameWithObfMap = obfKeyToMojMethodNameMap.entrySet().stream().collect(Collectors.toMap(
-                Map.Entry::getKey,
-                e -> e.getValue()
-                        .getName()
-                        .getMojangName()
-                        .orElseGet(() -> e.getValue().getName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing mojang name")))
-        ));
-
-        remapper = new ASMRemapper(
-                obfToMojClassNameMap,
-                obfToMojMethodNameWithObfMap
-        );
-
-        for (final ClassMetadata aClass : signatureRemappedData.getClasses()) {
-            bouncerRemappedDataBuilder.addClass(
-                    adaptReferences(
-                            aClass,
-                            obfKeyToMojMethodNameMap,
-                            obfKeyToMojFieldNameMap,
-                            remapper
-                    )
-            );
-        }
-
-        return bouncerRemappedDataBuilder.build();
+        // Signatures and references are adapted in the same pass: references are built from the members they point
+        // to, which are given the same names as when the members themselves are adapted. Classes only read the maps
+        // and the remapper, so they are adapted in parallel, and added back in their original order.
+        final List<ClassMetadata> adaptedClasses = sourceMetadata.getClasses().parallelStream()
+                .map(aClass -> adaptClass(
+                        aClass,
+                        obfToMojClassNameMap,
+                        obfKeyToMojMethodNameMap,
+                        obfKeyToMojFieldNameMap,
+                        remapper
+                ))
+                .collect(Collectors.toList());
+        adaptedClasses.forEach(sourceMetadataBuilder::addClass);
+
+        return sourceMetadataBuilder.build();
     }
 
-    private static ClassMetadata adaptSignatures(
+    private static ClassMetadata adaptClass(
             final ClassMetadata classMetadata,
             final Map<String, String> obfToMojNameMap,
+            final Map<MemberKey, MethodMetadata> obfKeyToMojMethodNameMap,
+            final Map<MemberKey, FieldMetadata> obfKeyToMojFieldNameMap,
             final ASMRemapper remapper
     ) {
 
         final ClassMetadataBuilder classMetadataBuilder = ClassMetadataBuilder.create(classMetadata)
                 .withInnerClasses(classMetadata.getInnerClasses().stream()
-                        .map(inner -> adaptSignatures(inner, obfToMojNameMap, remapper))
+                        .map(inner -> adaptClass(inner, obfToMojNameMap, obfKeyToMojMethodNameMap, obfKeyToMojFieldNameMap, remapper))
                         .collect(CollectorUtils.toLinkedSet()))
                 .withMethods(classMetadata.getMethods().stream()
-                        .map(method -> {
-                            final MethodMetadataBuilder builder = MethodMetadataBuilder.create(method);
-
-                            if (!method.getOwner().hasMojangName() && method.getOwner().hasObfuscatedName()) {
-                                builder.withOwner(
-                                        NamedBuilder.create(method.getOwner())
-                                                .withMojang(
-                                                        obfToMojNameMap.getOrDefault(
-                                                                method.getOwner()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated method owner name")),
-                                                                method.getOwner()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated method owner name"))
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
-
-                            if (!method.getDescriptor().hasMojangName() && method.getDescriptor().hasObfuscatedName()) {
-                                builder.withDescriptor(
-                                        NamedBuilder.create(method.getDescriptor())
-                                                .withMojang(
-                                                        remapper.mapMethodDesc(
-                                                                method.getDescriptor()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated method descriptor."))
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
-
-                            if (!method.getSignature().hasMojangName() && method.getSignature().hasObfuscatedName()) {
-                                builder.withSignature(
-                                        NamedBuilder.create(method.getSignature())
-                                                .withMojang(
-                                                        remapper.mapSignature(
-                                                                method.getSignature()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated method signature.")),
-                                                                false
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
-                            return builder.build();
-                        })
+                        .map(method -> adaptMethod(method, obfToMojNameMap, obfKeyToMojMethodNameMap, remapper))
                         .collect(CollectorUtils.toLinkedSet()))
                 .withFields(classMetadata.getFields().stream()
-                        .map(field -> {
-                            final FieldMetadataBuilder fieldMetadataBuilder = FieldMetadataBuilder.create(field);
-
-                            if (!field.getDescriptor().hasMojangName() && field.getDescriptor().hasObfuscatedName()) {
-                                fieldMetadataBuilder.withDescriptor(
-                                        NamedBuilder.create(field.getDescriptor())
-                                                .withMojang(
-                                                        remapper.mapMethodDesc(
-                                                                field.getDescriptor()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated field descriptor."))
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
-
-                            if (field.getSignature().hasObfuscatedName() && !field.getSignature().hasMojangName()) {
-                                fieldMetadataBuilder.withSignature(
-                                        NamedBuilder.create(field.getSignature())
-                                                .withMojang(
-                                                        remapper.mapSignature(
-                                                                field.getSignature().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated field signature")),
-                                                                true
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
-
-                            return fieldMetadataBuilder.build();
-                        })
+                        .map(field -> FieldMetadataBuilder.create(field)
+                                .withDescriptor(adaptDescriptor(field.getDescriptor(), remapper))
+                                .withSignature(adaptSignature(field.getSignature(), remapper, true))
+                                .build())
                         .collect(CollectorUtils.toLinkedSet()))
                 .withRecords(classMetadata.getRecords().stream()
                         .map(record -> {
-                            final RecordMetadataBuilder builder = RecordMetadataBuilder.create(record);
-
-                            if (!record.getOwner().hasMojangName() && record.getOwner().hasObfuscatedName()) {
-                                builder.withOwner(
-                                        NamedBuilder.create(record.getOwner())
-                                                .withMojang(
-                                                        obfToMojNameMap.getOrDefault(
-                                                                record.getOwner()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated record owner name")),
-                                                                record.getOwner()
-                                                                        .getObfuscatedName()
-                                                                        .orElseThrow(() -> new IllegalStateException("Missing obfuscated record owner name"))
-                                                        )
-                                                )
-                                                .build()
-                                );
-                            }
+                            final RecordMetadataBuilder builder = RecordMetadataBuilder.create(record)
+                                    .withOwner(adaptClassName(record.getOwner(), obfToMojNameMap));
 
-                            return builder.build();
-                        })
-                        .collect(CollectorUtils.toLinkedSet()));
+                            final MemberKey obfuscatedMethodKey = buildMethodKey(
+                                    record.getGetter()
+                            );
+                            final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedMethodKey);
+                            if (methodMetadata != null) {
+                                builder.withGetter(createRemappedReference(methodMetadata, obfToMojNameMap, remapper));
+                            }
 
 
-        if (!classMetadata.getSuperName().hasMojangName() && classMetadata.getSuperName().hasObfuscatedName()) {
-            final String obfuscatedSuperName =
-                    classMetadata.getSuperName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated name on super class."));
-            final NamedBuilder namedBuilder = NamedBuilder.create(classMetadataBuilder.getSuperName());
-            namedBuilder.withMojang(
-                    obfToMojNameMap.getOrDefault(obfuscatedSuperName, obfuscatedSuperName)
-            );
+                            final MemberKey obfuscatedFieldKey = buildFieldKey(
+                                    record.getField()
+                            );
+                            final FieldMetadata fieldMetadata = obfKeyToMojFieldNameMap.get(obfuscatedFieldKey);
+                            if (fieldMetadata != null) {
+                                builder.withField(createRemappedReference(fieldMetadata, remapper));
+                            }
 
-            classMetadataBuilder.withSuperName(namedBuilder.build());
-        }
+                            return builder.build();
+                        })
+                        .collect(CollectorUtils.toLinkedSet()))
+                .withSuperName(adaptClassName(classMetadata.getSuperName(), obfToMojNameMap));
 
         if (!classMetadata.getSignature().hasMojangName() && classMetadata.getSignature().hasObfuscatedName()) {
             final String obfuscatedSignature =
@@ -273,141 +170,130 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         return classMetadataBuilder.build();
     }
 
-    private static ClassMetadata adaptReferences(
-            final ClassMetadata classMetadata,
-            final Map<String, MethodMetadata> obfKeyToMojMethodNameMap,
-            final Map<String, FieldMetadata> obfKeyToMojFieldNameMap,
+    private static MethodMetadata adaptMethod(
+            final MethodMetadata method,
+            final Map<String, String> obfToMojNameMap,
+            final Map<MemberKey, MethodMetadata> obfKeyToMojMethodNameMap,
             final ASMRemapper remapper
     ) {
+        final MethodMetadataBuilder builder = MethodMetadataBuilder.create(method)
+                .withOwner(adaptClassName(method.getOwner(), obfToMojNameMap))
+                .withDescriptor(adaptDescriptor(method.getDescriptor(), remapper))
+                .withSignature(adaptSignature(method.getSignature(), remapper, false));
+
+        if (method.getBouncingTarget().isPresent()) {
+            final BouncingTargetMetadataBuilder bouncingBuilder = BouncingTargetMetadataBuilder.create();
+
+            if (method.getBouncingTarget().get().getTarget().isPresent()) {
+                final MemberKey obfuscatedKey = buildMethodKey(
+                        method.getBouncingTarget().get().getTarget().get()
+                );
+                final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
+                if (methodMetadata != null) {
+                    bouncingBuilder.withTarget(createRemappedReference(methodMetadata, obfToMojNameMap, remapper));
+                } else {
+                    bouncingBuilder.withTarget(
+                            method.getBouncingTarget().get().getTarget().get()
+                    );
+                }
+            }
+
+            if (method.getBouncingTarget().get().getOwner().isPresent()) {
+                final MemberKey obfuscatedKey = buildMethodKey(
+                        method.getBouncingTarget().get().getOwner().get()
+                );
+                final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
+                if (methodMetadata != null) {
+                    bouncingBuilder.withOwner(createRemappedReference(methodMetadata, obfToMojNameMap, remapper));
+                } else {
+                    bouncingBuilder.withOwner(
+                            method.getBouncingTarget().get().getTarget().get()
+                    );
+                }
+            }
 
-        final ClassMetadataBuilder classMetadataBuilder = ClassMetadataBuilder.create(classMetadata)
-                .withInnerClasses(classMetadata.getInnerClasses().stream()
-                        .map(inner -> adaptReferences(inner, obfKeyToMojMethodNameMap, obfKeyToMojFieldNameMap, remapper))
-                        .collect(CollectorUtils.toLinkedSet()))
-                .withMethods(classMetadata.getMethods().stream()
-                        .map(method -> {
-                            final MethodMetadataBuilder builder = MethodMetadataBuilder.create(method);
-
-                            if (method.getBouncingTarget().isPresent()) {
-                                final BouncingTargetMetadataBuilder bouncingBuilder = BouncingTargetMetadataBuilder.create();
-
-                                if (method.getBouncingTarget().get().getTarget().isPresent()) {
-                                    final String obfuscatedKey = buildMethodKey(
-                                            method.getBouncingTarget().get().getTarget().get()
-                                    );
-                                    final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
-                                    if (methodMetadata != null) {
-                                        final ReferenceBuilder targetBuilder = createRemappedReference(remapper, methodMetadata);
-                                        bouncingBuilder.withTarget(targetBuilder.build());
-                                    } else {
-                                        bouncingBuilder.withTarget(
-                                                method.getBouncingTarget().get().getTarget().get()
-                                        );
-                                    }
-                                }
-
-                                if (method.getBouncingTarget().get().getOwner().isPresent()) {
-                                    final String obfuscatedKey = buildMethodKey(
-                                            method.getBouncingTarget().get().getOwner().get()
-                                    );
-                                    final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
-                                    if (methodMetadata != null) {
-                                        final ReferenceBuilder ownerBuilder = createRemappedReference(remapper, methodMetadata);
-                                        bouncingBuilder.withOwner(ownerBuilder.build());
-                                    } else {
-                                        bouncingBuilder.withOwner(
-                                                method.getBouncingTarget().get().getTarget().get()
-                                        );
-                                    }
-                                }
-
-                                builder.withBouncingTarget(bouncingBuilder.build());
-                            }
+            builder.withBouncingTarget(bouncingBuilder.build());
+        }
 
-                            if (method.getParent().isPresent()) {
-                                final String obfuscatedKey = buildMethodKey(
-                                        method.getParent().get()
-                                );
-                                final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
+        if (method.getParent().isPresent()) {
+            final MemberKey obfuscatedKey = buildMethodKey(
+                    method.getParent().get()
+            );
+            final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
 
-                                if (methodMetadata != null) {
-                                    final ReferenceBuilder parentBuilder = createRemappedReference(remapper, methodMetadata);
-                                    builder.withParent(parentBuilder.build());
-                                }
-                            }
+            if (methodMetadata != null) {
+                builder.withParent(createRemappedReference(methodMetadata, obfToMojNameMap, remapper));
+            }
+        }
 
-                            if (!method.getOverrides().isEmpty()) {
-                                final LinkedHashSet<Reference> overrides = new LinkedHashSet<>();
-                                for (final Reference override : method.getOverrides()) {
-                                    final String obfuscatedKey = buildMethodKey(
-                                            override
-                                    );
-                                    final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
-
-                                    if (methodMetadata != null) {
-                                        final ReferenceBuilder overrideBuilder = createRemappedReference(remapper, methodMetadata);
-                                        overrides.add(overrideBuilder.build());
-                                    }
-                                }
-
-                                builder.withOverrides(overrides);
-                            }
+        if (!method.getOverrides().isEmpty()) {
+            final LinkedHashSet<Reference> overrides = new LinkedHashSet<>();
+            for (final Reference override : method.getOverrides()) {
+                final MemberKey obfuscatedKey = buildMethodKey(
+                        override
+                );
+                final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedKey);
 
-                            return builder.build();
-                        })
-                        .collect(CollectorUtils.toLinkedSet()))
-                .withRecords(classMetadata.getRecords().stream()
-                        .map(record -> {
-                            final RecordMetadataBuilder builder = RecordMetadataBuilder.create(record);
+                if (methodMetadata != null) {
+                    overrides.add(createRemappedReference(methodMetadata, obfToMojNameMap, remapper));
+                }
+            }
 
-                            final String obfuscatedMethodKey = buildMethodKey(
-                                    record.getGetter()
-                            );
-                            final MethodMetadata methodMetadata = obfKeyToMojMethodNameMap.get(obfuscatedMethodKey);
-                            if (methodMetadata != null) {
-                                final ReferenceBuilder getterBuilder = createRemappedReference(remapper, methodMetadata);
-                                builder.withGetter(getterBuilder.build());
-                            }
+            builder.withOverrides(overrides);
+        }
 
+        return builder.build();
+    }
 
-                            final String obfuscatedFieldKey = buildFieldKey(
-                                    record.getField()
-                            );
-                            final FieldMetadata fieldMetadata = obfKeyToMojFieldNameMap.get(obfuscatedFieldKey);
-                            if (fieldMetadata != null) {
-                                final ReferenceBuilder fieldBuilder = createRemappedReference(remapper, fieldMetadata);
-                                builder.withField(fieldBuilder.build());
-                            }
+    private static Reference createRemappedReference(final MethodMetadata methodMetadata, final Map<String, String> obfToMojNameMap, final ASMRemapper remapper) {
+        return ReferenceBuilder.create()
+                .withOwner(adaptClassName(methodMetadata.getOwner(), obfToMojNameMap))
+                .withName(methodMetadata.getName())
+                .withDescriptor(adaptDescriptor(methodMetadata.getDescriptor(), remapper))
+                .withSignature(adaptSignature(methodMetadata.getSignature(), remapper, false))
+                .build();
+    }
 
-                            return builder.build();
-                        })
-                        .collect(CollectorUtils.toLinkedSet()));
-        return classMetadataBuilder.build();
+    private static Reference createRemappedReference(final FieldMetadata fieldMetadata, final ASMRemapper remapper) {
+        return ReferenceBuilder.create()
+                .withOwner(fieldMetadata.getOwner())
+                .withName(fieldMetadata.getName())
+                .withDescriptor(adaptDescriptor(fieldMetadata.getDescriptor(), remapper))
+                .withSignature(adaptSignature(fieldMetadata.getSignature(), remapper, true))
+                .build();
     }
 
-    private static ReferenceBuilder createRemappedReference(final ASMRemapper remapper, final BaseReference methodMetadata) {
-        final ReferenceBuilder targetBuilder = ReferenceBuilder.create()
-                .withOwner(methodMetadata.getOwner())
-                .withName(methodMetadata.getName())
-                .withDescriptor(methodMetadata.getDescriptor())
-                .withSignature(methodMetadata.getSignature());
-
-        if (!methodMetadata.getSignature().hasMojangName() && methodMetadata.getSignature().hasObfuscatedName()) {
-            targetBuilder.withSignature(
-                    NamedBuilder.create(methodMetadata.getSignature())
-                            .withMojang(
-                                    remapper.mapSignature(
-                                            methodMetadata.getSignature()
-                                                    .getObfuscatedName()
-                                                    .orElseThrow(() -> new IllegalStateException("Missing obfuscated method signature.")),
-                                            false
-                                    )
-                            )
-                            .build()
-            );
-        }
+    private static Named adaptClassName(final Named className, final Map<String, String> obfToMojNameMap) {
+        if (className.hasMojangName() || !className.hasObfuscatedName())
+            return className;
 
-        return targetBuilder;
+        final String obfuscatedName = className.getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated class name"));
+        return NamedBuilder.create(className)
+                .withMojang(obfToMojNameMap.getOrDefault(obfuscatedName, obfuscatedName))
+                .build();
+    }
+
+    private static Named adaptDescriptor(final Named descriptor, final ASMRemapper remapper) {
+        if (descriptor.hasMojangName() || !descriptor.hasObfuscatedName())
+            return descriptor;
+
+        return NamedBuilder.create(descriptor)
+                .withMojang(remapper.mapMethodDesc(
+                        descriptor.getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated descriptor."))
+                ))
+                .build();
+    }
+
+    private static Named adaptSignature(final Named signature, final ASMRemapper remapper, final boolean typeSignature) {
+        if (signature.hasMojangName() || !signature.hasObfuscatedName())
+            return signature;
+
+        return NamedBuilder.create(signature)
+                .withMojang(remapper.mapSignature(
+                        signature.getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated signature.")),
+                        typeSignature
+                ))
+                .build();
     }
 
     private static void collectClassNames(final ClassMetadata classMetadata, final Map<String, String> obfToMojMap) {
@@ -419,7 +305,7 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         classMetadata.getInnerClasses().forEach(innerClassMetadata -> collectClassNames(innerClassMetadata, obfToMojMap));
     }
 
-    private static void collectMethodNames(final ClassMetadata classMetadata, final Map<String, MethodMetadata> objKeyToMojNameMap) {
+    private static void collectMethodNames(final ClassMetadata classMetadata, final Map<MemberKey, MethodMetadata> objKeyToMojNameMap) {
         classMetadata.getMethods().forEach(methodMetadata -> objKeyToMojNameMap.put(
                 buildMethodKey(methodMetadata),
                 methodMetadata
@@ -428,7 +314,7 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         classMetadata.getInnerClasses().forEach(innerClassMetadata -> collectMethodNames(innerClassMetadata, objKeyToMojNameMap));
     }
 
-    private static void collectFieldNames(final ClassMetadata classMetadata, final Map<String, FieldMetadata> objKeyToMojNameMap) {
+    private static void collectFieldNames(final ClassMetadata classMetadata, final Map<MemberKey, FieldMetadata> objKeyToMojNameMap) {
         classMetadata.getFields().forEach(fieldMetadata -> objKeyToMojNameMap.put(
                 buildFieldKey(fieldMetadata),
                 fieldMetadata
@@ -437,7 +323,7 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         classMetadata.getInnerClasses().forEach(innerClassMetadata -> collectFieldNames(innerClassMetadata, objKeyToMojNameMap));
     }
 
-    private static String buildMethodKey(final MethodMetadata methodMetadata) {
+    private static MemberKey buildMethodKey(final MethodMetadata methodMetadata) {
         return buildMethodKey(
                 methodMetadata.getOwner().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated owner name.")),
                 methodMetadata.getName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated method name.")),
@@ -445,7 +331,7 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         );
     }
 
-    private static String buildMethodKey(final Reference Reference) {
+    private static MemberKey buildMethodKey(final Reference Reference) {
         return buildMethodKey(
                 Reference.getOwner().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated owner name.")),
                 Reference.getName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated method name.")),
@@ -453,14 +339,11 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         );
     }
 
-    private static String buildMethodKey(final String className, final String methodName, final String methodDesc) {
-        return String.format("%s/%s%s",
-                className,
-                methodName,
-                methodDesc);
+    private static MemberKey buildMethodKey(final String className, final String methodName, final String methodDesc) {
+        return new MemberKey(className, methodName, methodDesc);
     }
 
-    private static String buildFieldKey(final FieldMetadata fieldMetadata) {
+    private static MemberKey buildFieldKey(final FieldMetadata fieldMetadata) {
         return buildFieldKey(
                 fieldMetadata.getOwner().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated owner name.")),
                 fieldMetadata.getName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated field name.")),
@@ -468,7 +351,7 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         );
     }
 
-    private static String buildFieldKey(final Reference fieldMetadata) {
+    private static MemberKey buildFieldKey(final Reference fieldMetadata) {
         return buildFieldKey(
                 fieldMetadata.getOwner().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated owner name.")),
                 fieldMetadata.getName().getObfuscatedName().orElseThrow(() -> new IllegalStateException("Missing obfuscated field name.")),
@@ -476,11 +359,8 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
         );
     }
 
-    private static String buildFieldKey(final String className, final String fieldName, final String fieldDesc) {
-        return String.format("%s/%s%s",
-                className,
-                fieldName,
-                fieldDesc);
+    private static MemberKey buildFieldKey(final String className, final String fieldName, final String fieldDesc) {
+        return new MemberKey(className, fieldName, fieldDesc);
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
@@ -495,22 +375,27 @@ public abstract class MergeMetadata extends MinecraftVersionTask {
 
         final Gson gson = ExtractMetadataTask.createMetadataGson();
 
-        final SourceMetadata leftSourceMetadata = gson.fromJson(new FileReader(leftSourceFile), SourceMetadata.class);
-        final SourceMetadata rightSourceMetadata = gson.fromJson(new FileReader(rightSourceFile), SourceMetadata.class);
+        final SourceMetadata leftSourceMetadata = ExtractMetadataTask.readMetadata(gson, leftSourceFile);
+        final SourceMetadata rightSourceMetadata = ExtractMetadataTask.readMetadata(gson, rightSourceFile);
 
         final SourceMetadata mergedMetadata = MetadataMerger.mergeOnObfuscatedNames(leftSourceMetadata, rightSourceMetadata);
 
         final SourceMetadata adaptedMetadata = adaptTypes(mergedMetadata);
 
-        final FileWriter fileWriter = new FileWriter(target);
-        gson.toJson(adaptedMetadata, fileWriter);
-        fileWriter.flush();
-        fileWriter.close();
+        try (JsonWriter jsonWriter = ExtractMetadataTask.createMetadataWriter(gson, target, getPrettyPrint().get(), getCompress().get())) {
+            gson.toJson(adaptedMetadata, adaptedMetadata.getClass(), jsonWriter);
+        }
     }
 
+    /**
+     * The first metadata to merge, in any {@link MetadataFormat} and optionally compressed with gzip.
+     */
     @InputFile
     public abstract RegularFileProperty getLeftSource();
 
+    /**
+     * The second metadata to merge, in any {@link MetadataFormat} and optionally compressed with gzip.
+     */
     @InputFile
     public abstract RegularFileProperty getRightSource();
 }
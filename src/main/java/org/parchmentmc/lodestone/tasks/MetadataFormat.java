@@ -0,0 +1,30 @@
+package org.parchmentmc.lodestone.tasks;
+
+import org.parchmentmc.lodestone.util.BinaryMetadataWriter;
+
+/**
+ * The formats metadata files can be written in. Tasks reading metadata accept either of them.
+ */
+public enum MetadataFormat {
+    /**
+     * JSON, as written by the Gson adapters of feather.
+     */
+    JSON(".json"),
+    /**
+     * The compact binary format of {@link BinaryMetadataWriter}, which can only be read by Lodestone.
+     */
+    BINARY(".bin");
+
+    private final String extension;
+
+    MetadataFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return The file extension of the format, including the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
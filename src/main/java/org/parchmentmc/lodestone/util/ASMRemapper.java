@@ -3,29 +3,92 @@ package org.parchmentmc.lodestone.util;
 import org.objectweb.asm.commons.Remapper;
 
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Remaps class and method names from lookup tables.
+ * <p>
+ * Method descriptors and signatures are rewritten by a {@link SignatureRewriter} rather than by ASM's signature
+ * visitors, and the results are kept in {@link BoundedCache}s, as the same ones are remapped over and over. Each cache
+ * holds at most about twice {@link #CACHE_GENERATION_SIZE} entries, evicting the ones that were not used recently.
+ * <p>
+ * The class renames are copied when the remapper is created. The remapper is thread-safe as long as the method renames
+ * are no longer modified.
+ */
 public class ASMRemapper extends Remapper {
+    private static final int CACHE_GENERATION_SIZE = 1 << 15;
+    private static final ThreadLocal<SignatureRewriter> REWRITERS = ThreadLocal.withInitial(SignatureRewriter::new);
 
-    private final Map<String, String> classRenames;
-    private final Map<String, String> methodRenames;
+    private final ClassNameTable classRenames;
+    private final Map<MemberKey, String> methodRenames;
+    private final BoundedCache<String, String> methodDescCache = new BoundedCache<>(CACHE_GENERATION_SIZE);
+    private final BoundedCache<String, String> signatureCache = new BoundedCache<>(CACHE_GENERATION_SIZE);
+    private final BoundedCache<String, String> typeSignatureCache = new BoundedCache<>(CACHE_GENERATION_SIZE);
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
-    public ASMRemapper(final Map<String, String> classRenames, final Map<String, String> methodRenames) {
-        this.classRenames = classRenames;
+    public ASMRemapper(final Map<String, String> classRenames, final Map<MemberKey, String> methodRenames) {
+        this.classRenames = new ClassNameTable(classRenames);
         this.methodRenames = methodRenames;
     }
 
     @Override
     public String mapMethodName(final String owner, final String name, final String descriptor) {
-        final String methodKey = String.format("%s/%s%s",
-                owner,
-                name,
-                descriptor);
-
-        return methodRenames.getOrDefault(methodKey, name);
+        return methodRenames.getOrDefault(new MemberKey(owner, name, descriptor), name);
     }
 
     @Override
     public String map(final String key) {
-        return classRenames.getOrDefault(key, key);
+        final String rename = classRenames.get(key);
+        return rename != null ? rename : key;
+    }
+
+    @Override
+    public String mapMethodDesc(final String methodDescriptor) {
+        if (methodDescriptor.isEmpty() || methodDescriptor.charAt(0) != '(')
+            return super.mapMethodDesc(methodDescriptor);
+
+        final String cached = methodDescCache.get(methodDescriptor);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        cacheMisses.increment();
+        final String remapped = REWRITERS.get().rewriteMethodDescriptor(classRenames, methodDescriptor);
+        methodDescCache.put(methodDescriptor, remapped);
+        return remapped;
+    }
+
+    @Override
+    public String mapSignature(final String signature, final boolean typeSignature) {
+        if (signature == null)
+            return null;
+
+        final BoundedCache<String, String> cache = typeSignature ? typeSignatureCache : signatureCache;
+        final String cached = cache.get(signature);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        cacheMisses.increment();
+        final String remapped = REWRITERS.get().rewriteSignature(classRenames, signature, typeSignature);
+        cache.put(signature, remapped);
+        return remapped;
+    }
+
+    /**
+     * @return How many descriptors and signatures were taken from the cache.
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return How many descriptors and signatures had to be remapped.
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
     }
 }
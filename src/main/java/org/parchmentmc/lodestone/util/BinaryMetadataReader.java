@@ -0,0 +1,266 @@
+package org.parchmentmc.lodestone.util;
+
+import org.parchmentmc.feather.metadata.BouncingTargetMetadataBuilder;
+import org.parchmentmc.feather.metadata.ClassMetadata;
+import org.parchmentmc.feather.metadata.ClassMetadataBuilder;
+import org.parchmentmc.feather.metadata.FieldMetadata;
+import org.parchmentmc.feather.metadata.FieldMetadataBuilder;
+import org.parchmentmc.feather.metadata.MethodMetadata;
+import org.parchmentmc.feather.metadata.MethodMetadataBuilder;
+import org.parchmentmc.feather.metadata.RecordMetadata;
+import org.parchmentmc.feather.metadata.RecordMetadataBuilder;
+import org.parchmentmc.feather.metadata.Reference;
+import org.parchmentmc.feather.metadata.ReferenceBuilder;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.metadata.SourceMetadataBuilder;
+import org.parchmentmc.feather.named.Named;
+import org.parchmentmc.feather.named.NamedBuilder;
+import org.parchmentmc.feather.util.SimpleVersion;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.parchmentmc.lodestone.util.BinaryMetadataWriter.*;
+
+/**
+ * Reads source metadata written by {@link BinaryMetadataWriter}, one top level class at a time.
+ */
+public class BinaryMetadataReader implements Closeable {
+    private final DataInputStream input;
+    private final List<String> strings = new ArrayList<>();
+    private final SimpleVersion specificationVersion;
+    private final String minecraftVersion;
+    private boolean finished = false;
+
+    /**
+     * Starts reading a file, reading its header.
+     *
+     * @param input The stream to read from, which should be buffered.
+     * @throws IOException If the stream does not hold binary metadata of a supported version.
+     */
+    public BinaryMetadataReader(final InputStream input) throws IOException {
+        this.input = new DataInputStream(input);
+        if (this.input.readInt() != MAGIC)
+            throw new IOException("Not a binary metadata file");
+
+        final int version = readVarInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unsupported binary metadata format version " + version);
+
+        this.specificationVersion = SimpleVersion.of(readString());
+        this.minecraftVersion = readString();
+    }
+
+    /**
+     * Checks whether a stream holds binary metadata, without consuming anything.
+     */
+    public static boolean isBinaryMetadata(final BufferedInputStream input) throws IOException {
+        input.mark(Integer.BYTES);
+        try {
+            final byte[] magic = new byte[Integer.BYTES];
+            int read = 0;
+            while (read < magic.length) {
+                final int count = input.read(magic, read, magic.length - read);
+                if (count < 0)
+                    return false;
+                read += count;
+            }
+            return ((magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8 | (magic[3] & 0xFF)) == MAGIC;
+        } finally {
+            input.reset();
+        }
+    }
+
+    /**
+     * Reads complete source metadata from a stream, without closing it.
+     */
+    public static SourceMetadata read(final InputStream input) throws IOException {
+        final BinaryMetadataReader reader = new BinaryMetadataReader(input);
+        final SourceMetadataBuilder builder = SourceMetadataBuilder.create()
+                .withSpecVersion(reader.getSpecificationVersion())
+                .withMinecraftVersion(reader.getMinecraftVersion());
+
+        ClassMetadata classMetadata;
+        while ((classMetadata = reader.readClass()) != null) {
+            builder.addClass(classMetadata);
+        }
+        return builder.build();
+    }
+
+    public SimpleVersion getSpecificationVersion() {
+        return specificationVersion;
+    }
+
+    public String getMinecraftVersion() {
+        return minecraftVersion;
+    }
+
+    /**
+     * Reads the next top level class with all its inner classes.
+     *
+     * @return The class, or {@code null} once all classes have been read.
+     */
+    public ClassMetadata readClass() throws IOException {
+        if (finished)
+            return null;
+
+        final int block = input.readUnsignedByte();
+        if (block == END) {
+            finished = true;
+            return null;
+        }
+        if (block != CLASS_BLOCK)
+            throw new IOException("Corrupt binary metadata: unknown block " + block);
+
+        return readClassBody();
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private ClassMetadata readClassBody() throws IOException {
+        final ClassMetadataBuilder builder = ClassMetadataBuilder.create()
+                .withName(readNamed())
+                .withOwner(readNamed())
+                .withSuperName(readNamed())
+                .withSignature(readNamed())
+                .withSecuritySpecifications(readVarInt())
+                .withIsRecord(input.readBoolean());
+
+        final int interfaceCount = readVarInt();
+        final LinkedHashSet<Named> interfaces = new LinkedHashSet<>();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(readNamed());
+        }
+
+        final int fieldCount = readVarInt();
+        final LinkedHashSet<FieldMetadata> fields = new LinkedHashSet<>();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(FieldMetadataBuilder.create()
+                    .withOwner(readNamed())
+                    .withName(readNamed())
+                    .withDescriptor(readNamed())
+                    .withSignature(readNamed())
+                    .withSecuritySpecification(readVarInt())
+                    .build());
+        }
+
+        final int methodCount = readVarInt();
+        final LinkedHashSet<MethodMetadata> methods = new LinkedHashSet<>();
+        for (int i = 0; i < methodCount; i++) {
+            methods.add(readMethod());
+        }
+
+        final int recordCount = readVarInt();
+        final LinkedHashSet<RecordMetadata> records = new LinkedHashSet<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(RecordMetadataBuilder.create()
+                    .withOwner(readNamed())
+                    .withField(readReference())
+                    .withGetter(readReference())
+                    .build());
+        }
+
+        final int innerClassCount = readVarInt();
+        final LinkedHashSet<ClassMetadata> innerClasses = new LinkedHashSet<>();
+        for (int i = 0; i < innerClassCount; i++) {
+            innerClasses.add(readClassBody());
+        }
+
+        return builder.withInterfaces(interfaces)
+                .withFields(fields)
+                .withMethods(methods)
+                .withRecords(records)
+                .withInnerClasses(innerClasses)
+                .build();
+    }
+
+    private MethodMetadata readMethod() throws IOException {
+        final MethodMetadataBuilder builder = MethodMetadataBuilder.create()
+                .withOwner(readNamed())
+                .withName(readNamed())
+                .withDescriptor(readNamed())
+                .withSignature(readNamed())
+                .withSecuritySpecification(readVarInt());
+
+        final int flags = input.readUnsignedByte();
+        builder.withLambda((flags & LAMBDA) != 0);
+        if ((flags & HAS_PARENT) != 0)
+            builder.withParent(readReference());
+        if ((flags & HAS_BOUNCING_TARGET) != 0) {
+            final BouncingTargetMetadataBuilder bouncingTarget = BouncingTargetMetadataBuilder.create();
+            if ((flags & HAS_BOUNCER_TARGET) != 0)
+                bouncingTarget.withTarget(readReference());
+            if ((flags & HAS_BOUNCER_OWNER) != 0)
+                bouncingTarget.withOwner(readReference());
+            builder.withBouncingTarget(bouncingTarget.build());
+        }
+
+        final int overrideCount = readVarInt();
+        final LinkedHashSet<Reference> overrides = new LinkedHashSet<>();
+        for (int i = 0; i < overrideCount; i++) {
+            overrides.add(readReference());
+        }
+        return builder.withOverrides(overrides).build();
+    }
+
+    private Reference readReference() throws IOException {
+        return ReferenceBuilder.create()
+                .withOwner(readNamed())
+                .withName(readNamed())
+                .withDescriptor(readNamed())
+                .withSignature(readNamed())
+                .build();
+    }
+
+    private Named readNamed() throws IOException {
+        final String obfuscated = readString();
+        final String mojang = readString();
+
+        final NamedBuilder builder = NamedBuilder.create();
+        if (obfuscated != null)
+            builder.withObfuscated(obfuscated);
+        if (mojang != null)
+            builder.withMojang(mojang);
+        return builder.build();
+    }
+
+    private String readString() throws IOException {
+        final int reference = readVarInt();
+        if (reference == NO_STRING)
+            return null;
+
+        if (reference == NEW_STRING) {
+            final byte[] bytes = new byte[readVarInt()];
+            input.readFully(bytes);
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        final int index = reference - FIRST_STRING_INDEX;
+        if (index >= strings.size())
+            throw new IOException("Corrupt binary metadata: unknown string " + index);
+        return strings.get(index);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            final int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Corrupt binary metadata: variable length integer is too long");
+    }
+}
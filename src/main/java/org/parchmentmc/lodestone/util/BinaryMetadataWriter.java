@@ -0,0 +1,211 @@
+package org.parchmentmc.lodestone.util;
+
+import org.parchmentmc.feather.metadata.BaseReference;
+import org.parchmentmc.feather.metadata.BouncingTargetMetadata;
+import org.parchmentmc.feather.metadata.ClassMetadata;
+import org.parchmentmc.feather.metadata.FieldMetadata;
+import org.parchmentmc.feather.metadata.MethodMetadata;
+import org.parchmentmc.feather.metadata.RecordMetadata;
+import org.parchmentmc.feather.metadata.Reference;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.named.Named;
+import org.parchmentmc.feather.util.SimpleVersion;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes source metadata in a compact binary format, one top level class at a time.
+ * <p>
+ * A file starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed by the specification and Minecraft version.
+ * Every top level class, with its members and inner classes, is written as a block starting with
+ * {@link #CLASS_BLOCK}, and the file ends with {@link #END}. All numbers are unsigned variable length integers, seven
+ * bits per byte with the lowest bits first. Strings are only written out the first time they are used, and
+ * referenced by the order in which they were first used afterwards, see {@link #writeString(String)}.
+ * <p>
+ * Names only keep their obfuscated and Mojang names, the only ones the Lodestone tasks produce.
+ */
+public class BinaryMetadataWriter implements Closeable {
+    static final int MAGIC = 0x4C534D44; // LSMD
+    static final int FORMAT_VERSION = 1;
+    static final int END = 0;
+    static final int CLASS_BLOCK = 1;
+
+    static final int NO_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int FIRST_STRING_INDEX = 2;
+
+    static final int LAMBDA = 1;
+    static final int HAS_PARENT = 1 << 1;
+    static final int HAS_BOUNCING_TARGET = 1 << 2;
+    static final int HAS_BOUNCER_TARGET = 1 << 3;
+    static final int HAS_BOUNCER_OWNER = 1 << 4;
+
+    private final DataOutputStream output;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    /**
+     * Starts writing a file.
+     *
+     * @param output           The stream to write to, which should be buffered.
+     * @param specVersion      The specification version of the metadata.
+     * @param minecraftVersion The Minecraft version of the metadata, or {@code null} if it is unknown.
+     */
+    public BinaryMetadataWriter(final OutputStream output, final SimpleVersion specVersion, final String minecraftVersion) throws IOException {
+        this.output = new DataOutputStream(output);
+        this.output.writeInt(MAGIC);
+        writeVarInt(FORMAT_VERSION);
+        writeString(specVersion.toString());
+        writeString(minecraftVersion);
+    }
+
+    /**
+     * Writes complete source metadata to a stream, without closing it.
+     */
+    public static void write(final SourceMetadata sourceMetadata, final OutputStream output) throws IOException {
+        final BinaryMetadataWriter writer = new BinaryMetadataWriter(output, sourceMetadata.getSpecificationVersion(),
+                sourceMetadata.getMinecraftVersion());
+        for (ClassMetadata classMetadata : sourceMetadata.getClasses()) {
+            writer.writeClass(classMetadata);
+        }
+        writer.finish();
+    }
+
+    /**
+     * Writes a top level class with all its inner classes.
+     */
+    public void writeClass(final ClassMetadata classMetadata) throws IOException {
+        output.writeByte(CLASS_BLOCK);
+        writeClassBody(classMetadata);
+    }
+
+    /**
+     * Ends the file after the last class, and flushes it. A file which is not finished can not be read.
+     */
+    public void finish() throws IOException {
+        output.writeByte(END);
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeClassBody(final ClassMetadata classMetadata) throws IOException {
+        writeNamed(classMetadata.getName());
+        writeNamed(classMetadata.getOwner());
+        writeNamed(classMetadata.getSuperName());
+        writeNamed(classMetadata.getSignature());
+        writeVarInt(classMetadata.getSecuritySpecification());
+        output.writeBoolean(classMetadata.isRecord());
+
+        writeVarInt(classMetadata.getInterfaces().size());
+        for (Named interfaceName : classMetadata.getInterfaces()) {
+            writeNamed(interfaceName);
+        }
+
+        writeVarInt(classMetadata.getFields().size());
+        for (FieldMetadata field : classMetadata.getFields()) {
+            writeReference(field);
+            writeVarInt(field.getSecuritySpecification());
+        }
+
+        writeVarInt(classMetadata.getMethods().size());
+        for (MethodMetadata method : classMetadata.getMethods()) {
+            writeMethod(method);
+        }
+
+        writeVarInt(classMetadata.getRecords().size());
+        for (RecordMetadata record : classMetadata.getRecords()) {
+            writeNamed(record.getOwner());
+            writeReference(record.getField());
+            writeReference(record.getGetter());
+        }
+
+        writeVarInt(classMetadata.getInnerClasses().size());
+        for (ClassMetadata innerClass : classMetadata.getInnerClasses()) {
+            writeClassBody(innerClass);
+        }
+    }
+
+    private void writeMethod(final MethodMetadata method) throws IOException {
+        writeReference(method);
+        writeVarInt(method.getSecuritySpecification());
+
+        final BouncingTargetMetadata bouncingTarget = method.getBouncingTarget().orElse(null);
+        int flags = method.isLambda() ? LAMBDA : 0;
+        if (method.getParent().isPresent())
+            flags |= HAS_PARENT;
+        if (bouncingTarget != null) {
+            flags |= HAS_BOUNCING_TARGET;
+            if (bouncingTarget.getTarget().isPresent())
+                flags |= HAS_BOUNCER_TARGET;
+            if (bouncingTarget.getOwner().isPresent())
+                flags |= HAS_BOUNCER_OWNER;
+        }
+        output.writeByte(flags);
+
+        if (method.getParent().isPresent())
+            writeReference(method.getParent().get());
+        if (bouncingTarget != null) {
+            if (bouncingTarget.getTarget().isPresent())
+                writeReference(bouncingTarget.getTarget().get());
+            if (bouncingTarget.getOwner().isPresent())
+                writeReference(bouncingTarget.getOwner().get());
+        }
+
+        writeVarInt(method.getOverrides().size());
+        for (Reference override : method.getOverrides()) {
+            writeReference(override);
+        }
+    }
+
+    private void writeReference(final BaseReference reference) throws IOException {
+        writeNamed(reference.getOwner());
+        writeNamed(reference.getName());
+        writeNamed(reference.getDescriptor());
+        writeNamed(reference.getSignature());
+    }
+
+    private void writeNamed(final Named named) throws IOException {
+        writeString(named.getObfuscatedName().orElse(null));
+        writeString(named.getMojangName().orElse(null));
+    }
+
+    /**
+     * Writes a string: {@link #NO_STRING} for {@code null}, {@link #NEW_STRING} followed by the length and UTF-8 bytes
+     * of the string the first time it is used, or its index plus {@link #FIRST_STRING_INDEX} after that.
+     */
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            writeVarInt(NO_STRING);
+            return;
+        }
+
+        final Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(index + FIRST_STRING_INDEX);
+            return;
+        }
+
+        strings.put(value, strings.size());
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(NEW_STRING);
+        writeVarInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+}
@@ -0,0 +1,63 @@
+package org.parchmentmc.lodestone.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe cache which holds at most about twice its generation size of entries.
+ * <p>
+ * New entries go into the young generation. Once it is full, it becomes the old generation, replacing the previous old
+ * one and evicting every entry in it that was not used since. Entries found in the old generation are moved back into
+ * the young one, so entries which are still used survive the next eviction.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+final class BoundedCache<K, V> {
+    private final int generationSize;
+    private final AtomicInteger youngSize = new AtomicInteger();
+    private volatile ConcurrentHashMap<K, V> young = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<K, V> old = new ConcurrentHashMap<>();
+
+    BoundedCache(final int generationSize) {
+        if (generationSize <= 0)
+            throw new IllegalArgumentException("Generation size must be positive: " + generationSize);
+        this.generationSize = generationSize;
+    }
+
+    /**
+     * @return The cached value, or {@code null} if there is none.
+     */
+    V get(final K key) {
+        final V value = young.get(key);
+        if (value != null)
+            return value;
+
+        final V oldValue = old.get(key);
+        if (oldValue != null)
+            put(key, oldValue);
+        return oldValue;
+    }
+
+    void put(final K key, final V value) {
+        if (young.putIfAbsent(key, value) == null && youngSize.incrementAndGet() >= generationSize)
+            rotate();
+    }
+
+    /**
+     * @return The number of cached entries, which may already be outdated when other threads use the cache.
+     */
+    int size() {
+        return young.size() + old.size();
+    }
+
+    private synchronized void rotate() {
+        //Other threads may have filled the young generation at the same time, only the first of them rotates it.
+        if (youngSize.get() < generationSize)
+            return;
+
+        old = young;
+        young = new ConcurrentHashMap<>();
+        youngSize.set(0);
+    }
+}
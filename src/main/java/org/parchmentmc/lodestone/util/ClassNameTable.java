@@ -0,0 +1,87 @@
+package org.parchmentmc.lodestone.util;
+
+import java.util.Map;
+
+/**
+ * An immutable lookup table of class renames, which can be probed with a range of characters as well as with a string.
+ * Probing with characters neither copies them nor builds a string from them.
+ */
+final class ClassNameTable {
+    private final String[] names;
+    private final String[] renames;
+    private final int mask;
+
+    ClassNameTable(final Map<String, String> classRenames) {
+        int capacity = 16;
+        while (capacity < classRenames.size() * 2) {
+            capacity <<= 1;
+        }
+        this.names = new String[capacity];
+        this.renames = new String[capacity];
+        this.mask = capacity - 1;
+
+        for (Map.Entry<String, String> entry : classRenames.entrySet()) {
+            if (entry.getValue() == null)
+                continue;
+
+            int index = spread(entry.getKey().hashCode()) & mask;
+            while (names[index] != null && !names[index].equals(entry.getKey())) {
+                index = (index + 1) & mask;
+            }
+            names[index] = entry.getKey();
+            renames[index] = entry.getValue();
+        }
+    }
+
+    /**
+     * @return The new name of the class, or {@code null} if it is not renamed.
+     */
+    String get(final String name) {
+        int index = spread(name.hashCode()) & mask;
+        String candidate;
+        while ((candidate = names[index]) != null) {
+            if (candidate.equals(name))
+                return renames[index];
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param chars The characters holding the name of the class.
+     * @param start The index of the first character of the name.
+     * @param end   The index after the last character of the name.
+     * @return The new name of the class, or {@code null} if it is not renamed.
+     */
+    String get(final char[] chars, final int start, final int end) {
+        //Same hash as String.hashCode(), so the names in the table do not need to store another one.
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int index = spread(hash) & mask;
+        String candidate;
+        while ((candidate = names[index]) != null) {
+            if (matches(candidate, chars, start, end))
+                return renames[index];
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static boolean matches(final String name, final char[] chars, final int start, final int end) {
+        if (name.length() != end - start)
+            return false;
+
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i - start) != chars[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
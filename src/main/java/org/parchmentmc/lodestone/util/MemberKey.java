@@ -0,0 +1,51 @@
+package org.parchmentmc.lodestone.util;
+
+/**
+ * A key for looking up a method or field by its owner, name and descriptor, without joining them into a string.
+ */
+public final class MemberKey {
+    private final String owner;
+    private final String name;
+    private final String desc;
+    private final int hash;
+
+    public MemberKey(String owner, String name, String desc) {
+        this.owner = owner;
+        this.name = name;
+        this.desc = desc;
+        this.hash = 31 * (31 * owner.hashCode() + name.hashCode()) + desc.hashCode();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    @Override
+    public String toString() {
+        return this.owner + '/' + this.name + this.desc;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof MemberKey))
+            return false;
+
+        final MemberKey other = (MemberKey) o;
+        return hash == other.hash && owner.equals(other.owner) && name.equals(other.name) && desc.equals(other.desc);
+    }
+}
@@ -0,0 +1,300 @@
+package org.parchmentmc.lodestone.util;
+
+/**
+ * Replaces the class names in method descriptors and generic signatures, giving the same results as ASM's
+ * {@link org.objectweb.asm.commons.Remapper} for valid ones, without going through its signature visitors.
+ * <p>
+ * Descriptors and signatures are copied into buffers which are reused from one call to the next, and class names are
+ * looked up straight from them. A call only allocates the resulting string, and nothing at all when no class name in
+ * it changes. A rewriter is therefore not thread-safe, each thread has to use its own.
+ */
+final class SignatureRewriter {
+    private char[] input = new char[256];
+    private int length;
+    private int position;
+    private char[] output = new char[256];
+    private int outputLength;
+    //The obfuscated names of the class types being rewritten, nested ones after the ones they are nested in.
+    private char[] classNames = new char[256];
+    private int classNamesLength;
+    //The new names of an inner class type and its outer class, see appendInnerClassName.
+    private char[] renamed = new char[256];
+    private ClassNameTable classRenames;
+
+    /**
+     * Rewrites a method descriptor, such as {@code (La;I)[Lb;}.
+     *
+     * @return The rewritten descriptor, or the given one if no class name in it changes.
+     */
+    String rewriteMethodDescriptor(final ClassNameTable classRenames, final String descriptor) {
+        start(classRenames, descriptor);
+        while (position < length) {
+            final char c = input[position++];
+            append(c);
+            if (c != 'L')
+                continue;
+
+            final int nameStart = position;
+            while (position < length && input[position] != ';') {
+                position++;
+            }
+            appendClassName(input, nameStart, position);
+        }
+        return finish(descriptor);
+    }
+
+    /**
+     * Rewrites a generic signature.
+     *
+     * @param typeSignature Whether the signature is the one of a field or a type, rather than of a class or a method.
+     * @return The rewritten signature, or the given one if no class name in it changes.
+     */
+    String rewriteSignature(final ClassNameTable classRenames, final String signature, final boolean typeSignature) {
+        start(classRenames, signature);
+        if (typeSignature) {
+            rewriteType();
+            return finish(signature);
+        }
+
+        if (peek() == '<') {
+            append(input[position++]);
+            char c;
+            do {
+                //Formal type parameters: an identifier, an optional class bound and any number of interface bounds.
+                while ((c = next()) != ':') {
+                    append(c);
+                }
+                append(c);
+                c = peek();
+                if (c == 'L' || c == '[' || c == 'T')
+                    rewriteType();
+                while ((c = next()) == ':') {
+                    append(c);
+                    rewriteType();
+                }
+                append(c);
+            } while (c != '>');
+        }
+
+        if (peek() == '(') {
+            append(input[position++]);
+            while (peek() != ')') {
+                rewriteType();
+            }
+            append(input[position++]);
+            rewriteType();
+            while (position < length) {
+                append(next());
+                rewriteType();
+            }
+        } else {
+            while (position < length) {
+                rewriteType();
+            }
+        }
+        return finish(signature);
+    }
+
+    private void rewriteType() {
+        final char c = next();
+        append(c);
+        switch (c) {
+            case 'L':
+                rewriteClassType();
+                break;
+            case '[':
+                rewriteType();
+                break;
+            case 'T':
+                char t;
+                while ((t = next()) != ';') {
+                    append(t);
+                }
+                append(t);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rewrites a class type after its {@code L}: a class name, optionally followed by type arguments and by inner
+     * class types, each with their own type arguments.
+     */
+    private void rewriteClassType() {
+        final int nameStart = classNamesLength;
+        int outerEnd = -1;
+        int simpleNameStart = nameStart;
+        boolean nameWritten = false;
+        while (true) {
+            final char c = next();
+            if (c != '.' && c != ';' && c != '<') {
+                appendClassNameChar(c);
+                continue;
+            }
+
+            if (!nameWritten) {
+                if (outerEnd < 0) {
+                    appendClassName(classNames, nameStart, classNamesLength);
+                } else {
+                    appendInnerClassName(nameStart, outerEnd, simpleNameStart);
+                }
+                nameWritten = true;
+            }
+
+            if (c == '<') {
+                append(c);
+                final int namesEnd = classNamesLength;
+                char argument;
+                while ((argument = peek()) != '>') {
+                    if (argument == '*') {
+                        append(next());
+                        continue;
+                    }
+                    if (argument == '+' || argument == '-')
+                        append(next());
+                    rewriteType();
+                    classNamesLength = namesEnd;
+                }
+                append(next());
+                continue;
+            }
+
+            append(c);
+            if (c == ';') {
+                classNamesLength = nameStart;
+                return;
+            }
+
+            //An inner class type, which is looked up by the name of its outer class joined to its own with a $.
+            outerEnd = classNamesLength;
+            appendClassNameChar('$');
+            simpleNameStart = classNamesLength;
+            nameWritten = false;
+        }
+    }
+
+    private void appendClassName(final char[] chars, final int start, final int end) {
+        final String rename = classRenames.get(chars, start, end);
+        if (rename == null) {
+            append(chars, start, end);
+        } else {
+            append(rename);
+        }
+    }
+
+    /**
+     * Appends the new simple name of an inner class, the way ASM's remapper does it: it is what follows the new name
+     * of the outer class and a {@code $} in the new name of the inner class, if it starts with them, otherwise what
+     * follows its last {@code $}.
+     */
+    private void appendInnerClassName(final int nameStart, final int outerEnd, final int simpleNameStart) {
+        final String outerRename = classRenames.get(classNames, nameStart, outerEnd);
+        final String rename = classRenames.get(classNames, nameStart, classNamesLength);
+        if (outerRename == null && rename == null) {
+            append(classNames, simpleNameStart, classNamesLength);
+            return;
+        }
+
+        //The new names are put side by side: first the one of the outer class followed by a $, then the inner one.
+        final int outerLength = (outerRename == null ? outerEnd - nameStart : outerRename.length()) + 1;
+        final int renameLength = rename == null ? classNamesLength - nameStart : rename.length();
+        renamed = ensureCapacity(renamed, outerLength + renameLength);
+        copyName(outerRename, nameStart, outerEnd, 0);
+        renamed[outerLength - 1] = '$';
+        copyName(rename, nameStart, classNamesLength, outerLength);
+
+        boolean startsWithOuter = renameLength >= outerLength;
+        for (int i = 0; startsWithOuter && i < outerLength; i++) {
+            startsWithOuter = renamed[outerLength + i] == renamed[i];
+        }
+
+        int start = outerLength;
+        if (startsWithOuter) {
+            start += outerLength;
+        } else {
+            for (int i = outerLength; i < outerLength + renameLength; i++) {
+                if (renamed[i] == '$')
+                    start = i + 1;
+            }
+        }
+        append(renamed, start, outerLength + renameLength);
+    }
+
+    private void copyName(final String rename, final int start, final int end, final int target) {
+        if (rename == null) {
+            System.arraycopy(classNames, start, renamed, target, end - start);
+        } else {
+            rename.getChars(0, rename.length(), renamed, target);
+        }
+    }
+
+    private void start(final ClassNameTable classRenames, final String value) {
+        this.classRenames = classRenames;
+        length = value.length();
+        input = ensureCapacity(input, length);
+        value.getChars(0, length, input, 0);
+        position = 0;
+        outputLength = 0;
+        classNamesLength = 0;
+    }
+
+    private String finish(final String value) {
+        classRenames = null;
+        if (position != length)
+            throw new IllegalArgumentException("Invalid descriptor or signature: " + value);
+
+        if (outputLength == length) {
+            boolean unchanged = true;
+            for (int i = 0; unchanged && i < length; i++) {
+                unchanged = output[i] == input[i];
+            }
+            if (unchanged)
+                return value;
+        }
+        return new String(output, 0, outputLength);
+    }
+
+    private char peek() {
+        if (position >= length)
+            throw new IllegalArgumentException("Invalid signature: " + new String(input, 0, length));
+        return input[position];
+    }
+
+    private char next() {
+        final char c = peek();
+        position++;
+        return c;
+    }
+
+    private void append(final char c) {
+        output = ensureCapacity(output, outputLength + 1);
+        output[outputLength++] = c;
+    }
+
+    private void append(final char[] chars, final int start, final int end) {
+        output = ensureCapacity(output, outputLength + end - start);
+        System.arraycopy(chars, start, output, outputLength, end - start);
+        outputLength += end - start;
+    }
+
+    private void append(final String value) {
+        output = ensureCapacity(output, outputLength + value.length());
+        value.getChars(0, value.length(), output, outputLength);
+        outputLength += value.length();
+    }
+
+    private void appendClassNameChar(final char c) {
+        classNames = ensureCapacity(classNames, classNamesLength + 1);
+        classNames[classNamesLength++] = c;
+    }
+
+    private static char[] ensureCapacity(final char[] chars, final int capacity) {
+        if (chars.length >= capacity)
+            return chars;
+
+        final char[] grown = new char[Math.max(capacity, chars.length * 2)];
+        System.arraycopy(chars, 0, grown, 0, chars.length);
+        return grown;
+    }
+}
@@ -0,0 +1,8 @@
+package game;
+
+public abstract class AbstractShape implements Shape {
+    @Override
+    public String name() {
+        return getClass().getSimpleName();
+    }
+}
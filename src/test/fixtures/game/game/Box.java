@@ -0,0 +1,17 @@
+package game;
+
+import lib.Handler;
+
+public class Box implements Copyable<Box>, Handler<Box> {
+    private Box content;
+
+    @Override
+    public Box copy() {
+        return new Box();
+    }
+
+    @Override
+    public void handle(Box value) {
+        content = value;
+    }
+}
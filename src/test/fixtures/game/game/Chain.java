@@ -0,0 +1,10 @@
+package game;
+
+import lib.Handler;
+
+public abstract class Chain implements Shape, Handler<Shape> {
+    @Override
+    public String describe() {
+        return name();
+    }
+}
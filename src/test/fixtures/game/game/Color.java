@@ -0,0 +1,16 @@
+package game;
+
+public enum Color implements Shape {
+    RED {
+        @Override
+        public double area() {
+            return 1;
+        }
+    },
+    BLUE {
+        @Override
+        public double area() {
+            return 2;
+        }
+    };
+}
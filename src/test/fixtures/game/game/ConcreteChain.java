@@ -0,0 +1,12 @@
+package game;
+
+public class ConcreteChain extends Chain {
+    @Override
+    public double area() {
+        return 0;
+    }
+
+    @Override
+    public void handle(Shape value) {
+    }
+}
@@ -0,0 +1,5 @@
+package game;
+
+public interface Copyable<T extends Copyable<T>> {
+    T copy();
+}
@@ -0,0 +1,17 @@
+package game;
+
+import lib.Base;
+
+public class Counter extends Base<Integer> {
+    private int count;
+
+    @Override
+    public Integer get() {
+        return count;
+    }
+
+    @Override
+    protected void reset() {
+        count = 0;
+    }
+}
@@ -0,0 +1,30 @@
+package game;
+
+import java.util.function.Supplier;
+
+public class Outer {
+    private final Supplier<Shape> factory = () -> new Square(2);
+
+    public Shape create() {
+        return factory.get();
+    }
+
+    public class Inner extends Square {
+        public Inner() {
+            super(1);
+        }
+
+        @Override
+        public double area() {
+            return super.area() * 2;
+        }
+    }
+
+    static class Nested implements Runnable {
+        @Override
+        public void run() {
+            final Runnable runnable = () -> System.out.println("nested");
+            runnable.run();
+        }
+    }
+}
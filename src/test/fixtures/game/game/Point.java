@@ -0,0 +1,8 @@
+package game;
+
+public record Point(int x, int y) implements Comparable<Point> {
+    @Override
+    public int compareTo(Point other) {
+        return Integer.compare(x * x + y * y, other.x * other.x + other.y * other.y);
+    }
+}
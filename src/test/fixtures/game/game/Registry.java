@@ -0,0 +1,16 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Registry<T extends Shape> {
+    private final List<T> entries = new ArrayList<>();
+
+    public void register(T entry) {
+        entries.add(entry);
+    }
+
+    public List<T> getEntries() {
+        return entries;
+    }
+}
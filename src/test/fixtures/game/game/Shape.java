@@ -0,0 +1,9 @@
+package game;
+
+public interface Shape {
+    double area();
+
+    default String name() {
+        return "shape";
+    }
+}
@@ -0,0 +1,18 @@
+package game;
+
+public class Square extends AbstractShape {
+    private final double side;
+
+    public Square(double side) {
+        this.side = side;
+    }
+
+    public double getSide() {
+        return side;
+    }
+
+    @Override
+    public double area() {
+        return side * side;
+    }
+}
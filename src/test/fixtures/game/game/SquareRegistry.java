@@ -0,0 +1,8 @@
+package game;
+
+public class SquareRegistry extends Registry<Square> {
+    @Override
+    public void register(Square entry) {
+        super.register(entry);
+    }
+}
@@ -0,0 +1,9 @@
+package game;
+
+import lib.Handler;
+
+public class StringHandler implements Handler<String> {
+    @Override
+    public void handle(String value) {
+    }
+}
@@ -0,0 +1,13 @@
+package lib;
+
+public abstract class Base<T extends Comparable<T>> implements Comparable<Base<T>> {
+    public abstract T get();
+
+    @Override
+    public int compareTo(Base<T> other) {
+        return get().compareTo(other.get());
+    }
+
+    protected void reset() {
+    }
+}
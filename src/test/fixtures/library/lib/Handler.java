@@ -0,0 +1,9 @@
+package lib;
+
+public interface Handler<T> {
+    void handle(T value);
+
+    default String describe() {
+        return "handler";
+    }
+}
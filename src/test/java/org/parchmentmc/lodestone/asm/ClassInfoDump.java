@@ -0,0 +1,63 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Writes everything the cleaner resolves about classes as sorted text, so the results can be compared line by line.
+ */
+final class ClassInfoDump {
+    private ClassInfoDump() {
+    }
+
+    static String dump(final Collection<MutableClassInfo> classes) {
+        final List<MutableClassInfo> sortedClasses = new ArrayList<>(classes);
+        sortedClasses.sort(Comparator.comparing(MutableClassInfo::getName));
+
+        final StringBuilder builder = new StringBuilder();
+        for (MutableClassInfo info : sortedClasses) {
+            builder.append("class ").append(info.getName())
+                    .append(" access=").append(info.getAccess())
+                    .append(" super=").append(info.getSuperName())
+                    .append(" interfaces=").append(info.getInterfaces())
+                    .append(" signature=").append(info.getSignature())
+                    .append(" record=").append(info.isRecord())
+                    .append(" resolved=").append(info.isResolved())
+                    .append('\n');
+
+            final List<String> lines = new ArrayList<>();
+            for (MutableFieldInfo field : info.getFields().values()) {
+                lines.add("  field " + field.getName() + ' ' + field.getDesc()
+                        + " access=" + field.getAccess()
+                        + " signature=" + field.getSignature()
+                        + " getters=" + sorted(field.getGetters()));
+            }
+            for (MutableMethodInfo method : info.getMethods().values()) {
+                final MutableBouncerInfo bouncer = method.getBouncer();
+                lines.add("  method " + method.getMethod()
+                        + " access=" + method.getAccess()
+                        + " signature=" + method.getSignature()
+                        + " lambda=" + method.isLambda()
+                        + " force=" + method.getForce()
+                        + " overrides=" + sorted(method.getOverrides())
+                        + " parent=" + method.getParent()
+                        + " bouncer=" + (bouncer == null ? null : bouncer.getTarget() + " owner=" + bouncer.getOwner()));
+            }
+            for (MutableRecordInfo record : info.getRecords().values()) {
+                lines.add("  record " + record.getName() + ' ' + record.getDesc()
+                        + " getters=" + sorted(record.getGetters()));
+            }
+            lines.sort(Comparator.naturalOrder());
+            lines.forEach(line -> builder.append(line).append('\n'));
+        }
+        return builder.toString();
+    }
+
+    private static List<String> sorted(final Collection<?> values) {
+        return values == null ? null : values.stream().map(Objects::toString).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,38 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares everything the cleaner resolves for the fixture classes with {@code fixtures/cleaned-classes.txt}. That
+ * file was written by the parser and cleaner of the first Lodestone version, before any of the parsing and resolving
+ * was reworked.
+ */
+class CodeCleanerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void cleansLikeTheBaseline() throws IOException {
+        assertEquals(Fixtures.read("cleaned-classes.txt"), ClassInfoDump.dump(Fixtures.cleanClasses(new CodeTree(), tempDir).values()));
+    }
+
+    @Test
+    void cleansLazilyLoadedJarsLikeTheBaseline() throws IOException {
+        assertEquals(Fixtures.read("cleaned-classes.txt"), ClassInfoDump.dump(Fixtures.cleanClasses(new CodeTree(true), tempDir).values()));
+    }
+
+    @Test
+    void cleansWithLibraryIndexLikeTheBaseline() throws IOException {
+        final Path indexDirectory = tempDir.resolve("library-index");
+
+        //The first run writes the library index, the second one reads it.
+        assertEquals(Fixtures.read("cleaned-classes.txt"), ClassInfoDump.dump(Fixtures.cleanClasses(new CodeTree(true, indexDirectory), tempDir).values()));
+        assertEquals(Fixtures.read("cleaned-classes.txt"), ClassInfoDump.dump(Fixtures.cleanClasses(new CodeTree(true, indexDirectory), tempDir).values()));
+    }
+}
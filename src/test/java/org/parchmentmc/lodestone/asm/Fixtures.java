@@ -0,0 +1,59 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Access to the fixture jars, whose sources are in {@code src/test/fixtures}, and the other files in the
+ * {@code fixtures} test resources. The jars are compiled with {@code javac --release 17 -g:none}, the game classes
+ * against the library ones.
+ */
+public final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * Loads the fixture jars into a code tree, and parses and cleans their game classes.
+     *
+     * @param codeTree  The code tree to load the jars into, which is closed afterwards.
+     * @param directory The directory to copy the jars to.
+     * @return The cleaned game classes.
+     */
+    public static Map<String, MutableClassInfo> cleanClasses(final CodeTree codeTree, final Path directory) throws IOException {
+        try (CodeTree tree = codeTree) {
+            tree.load(copy("game.jar", directory), false);
+            tree.load(copy("library.jar", directory), true);
+
+            final Map<String, MutableClassInfo> classes = tree.parseGameClasses();
+            new CodeCleaner(tree).cleanClasses(classes.values());
+            return classes;
+        }
+    }
+
+    public static Path copy(final String name, final Path directory) throws IOException {
+        final Path target = directory.resolve(name);
+        if (!Files.exists(target)) {
+            try (InputStream input = open(name)) {
+                Files.copy(input, target);
+            }
+        }
+        return target;
+    }
+
+    public static String read(final String name) throws IOException {
+        try (InputStream input = open(name)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream open(final String name) throws IOException {
+        final InputStream input = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (input == null)
+            throw new IOException("Missing test resource " + name);
+        return input;
+    }
+}
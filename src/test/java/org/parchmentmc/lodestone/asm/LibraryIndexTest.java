@@ -0,0 +1,115 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that a damaged library index is treated as missing: the classes are still cleaned like the baseline, and the
+ * index is rebuilt.
+ */
+class LibraryIndexTest {
+    //The header is the magic, the version, the checksum and the class count, followed by the first name length.
+    private static final int FIRST_NAME_LENGTH = 16;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rebuildsTruncatedIndex() throws IOException {
+        final byte[] valid = writeIndex();
+        Files.write(indexFile(), Arrays.copyOf(valid, valid.length / 2));
+
+        assertCleansLikeTheBaseline();
+        assertArrayEquals(valid, Files.readAllBytes(indexFile()));
+    }
+
+    @Test
+    void rebuildsIndexWithWrongChecksum() throws IOException {
+        final byte[] valid = writeIndex();
+        final byte[] damaged = valid.clone();
+        damaged[damaged.length - 1] ^= 1;
+        Files.write(indexFile(), damaged);
+
+        assertCleansLikeTheBaseline();
+        assertArrayEquals(valid, Files.readAllBytes(indexFile()));
+    }
+
+    @Test
+    void rebuildsIndexWithNegativeNameLength() throws IOException {
+        final byte[] valid = writeIndex();
+        damage(buffer -> buffer.putInt(FIRST_NAME_LENGTH, -1));
+
+        assertCleansLikeTheBaseline();
+        assertArrayEquals(valid, Files.readAllBytes(indexFile()));
+    }
+
+    @Test
+    void rebuildsIndexWithBlockPastTheEnd() throws IOException {
+        final byte[] valid = writeIndex();
+        damage(buffer -> buffer.putInt(FIRST_NAME_LENGTH + 4 + buffer.getInt(FIRST_NAME_LENGTH), Integer.MAX_VALUE));
+
+        assertCleansLikeTheBaseline();
+        assertArrayEquals(valid, Files.readAllBytes(indexFile()));
+    }
+
+    @Test
+    void dropsIndexWithUndecodableClass() throws IOException {
+        writeIndex();
+        damage(buffer -> {
+            final int blockStart = FIRST_NAME_LENGTH + 8 + buffer.getInt(FIRST_NAME_LENGTH);
+            for (int i = blockStart; i < blockStart + buffer.getInt(blockStart - 4); i++) {
+                buffer.put(i, (byte) 0xFF);
+            }
+        });
+
+        //The damage is only found once the class is decoded, so the index is deleted to be rebuilt by the next run.
+        assertCleansLikeTheBaseline();
+        assertFalse(Files.exists(indexFile()));
+    }
+
+    private byte[] writeIndex() throws IOException {
+        assertCleansLikeTheBaseline();
+        return Files.readAllBytes(indexFile());
+    }
+
+    /**
+     * Changes the index file and fixes its checksum, so only the change itself can be noticed.
+     */
+    private void damage(final Consumer<ByteBuffer> change) throws IOException {
+        final byte[] data = Files.readAllBytes(indexFile());
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        change.accept(buffer);
+
+        final CRC32 crc = new CRC32();
+        crc.update(data, 12, data.length - 12);
+        buffer.putInt(8, (int) crc.getValue());
+        Files.write(indexFile(), data);
+    }
+
+    private void assertCleansLikeTheBaseline() throws IOException {
+        assertEquals(Fixtures.read("cleaned-classes.txt"), ClassInfoDump.dump(Fixtures.cleanClasses(new CodeTree(true, indexDirectory()), tempDir).values()));
+    }
+
+    private Path indexDirectory() {
+        return tempDir.resolve("library-index");
+    }
+
+    private Path indexFile() throws IOException {
+        try (Stream<Path> files = Files.list(indexDirectory())) {
+            return files.filter(file -> file.toString().endsWith(".bin")).findFirst().orElse(indexDirectory().resolve("missing.bin"));
+        }
+    }
+}
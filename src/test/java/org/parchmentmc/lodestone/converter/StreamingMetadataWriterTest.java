@@ -0,0 +1,101 @@
+package org.parchmentmc.lodestone.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.parchmentmc.feather.io.gson.SimpleVersionAdapter;
+import org.parchmentmc.feather.io.gson.metadata.MetadataAdapterFactory;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.util.SimpleVersion;
+import org.parchmentmc.lodestone.asm.CodeTree;
+import org.parchmentmc.lodestone.asm.Fixtures;
+import org.parchmentmc.lodestone.util.BinaryMetadataReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the streamed metadata of the fixture classes is the same as the metadata built all at once.
+ */
+class StreamingMetadataWriterTest {
+    private static final SimpleVersion SPEC_VERSION = SimpleVersion.of("1.0.0");
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(SimpleVersion.class, new SimpleVersionAdapter())
+            .registerTypeAdapterFactory(new MetadataAdapterFactory())
+            .disableHtmlEscaping()
+            .create();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamsJsonLikeTheBuiltMetadata() throws IOException {
+        final StreamingMetadataWriter metadataWriter = createWriter();
+
+        final StringWriter streamed = new StringWriter();
+        try (JsonWriter writer = gson.newJsonWriter(streamed)) {
+            metadataWriter.writeJson(gson, writer);
+        }
+
+        assertEquals(gson.toJson(metadataWriter.createSourceMetadata(), SourceMetadata.class), streamed.toString());
+    }
+
+    @Test
+    void streamsBinaryLikeTheBuiltMetadata() throws IOException {
+        final StreamingMetadataWriter metadataWriter = createWriter();
+
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        metadataWriter.writeBinary(streamed);
+
+        final SourceMetadata readBack = BinaryMetadataReader.read(new ByteArrayInputStream(streamed.toByteArray()));
+        assertEquals(gson.toJson(metadataWriter.createSourceMetadata(), SourceMetadata.class), gson.toJson(readBack, SourceMetadata.class));
+    }
+
+    @Test
+    void failsOnUnknownJsonLayout() throws IOException {
+        //Writes only the number of classes, so there is no list of classes to stream into.
+        final Gson countingGson = gson.newBuilder()
+                .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+                        if (!SourceMetadata.class.isAssignableFrom(type.getRawType()))
+                            return null;
+                        return (TypeAdapter<T>) new TypeAdapter<SourceMetadata>() {
+                            @Override
+                            public void write(final JsonWriter out, final SourceMetadata value) throws IOException {
+                                out.beginObject().name("classCount").value(value.getClasses().size()).endObject();
+                            }
+
+                            @Override
+                            public SourceMetadata read(final JsonReader in) {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+                })
+                .create();
+        final StreamingMetadataWriter metadataWriter = createWriter();
+
+        try (JsonWriter writer = countingGson.newJsonWriter(new StringWriter())) {
+            assertThrows(IllegalStateException.class, () -> metadataWriter.writeJson(countingGson, writer));
+        }
+    }
+
+    private StreamingMetadataWriter createWriter() throws IOException {
+        return new StreamingMetadataWriter(SPEC_VERSION, "1.20.1", Fixtures.cleanClasses(new CodeTree(), tempDir).values());
+    }
+}
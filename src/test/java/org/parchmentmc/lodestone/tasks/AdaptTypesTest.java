@@ -0,0 +1,132 @@
+package org.parchmentmc.lodestone.tasks;
+
+import org.junit.jupiter.api.Test;
+import org.parchmentmc.feather.metadata.BaseReference;
+import org.parchmentmc.feather.metadata.BouncingTargetMetadata;
+import org.parchmentmc.feather.metadata.ClassMetadata;
+import org.parchmentmc.feather.metadata.MethodMetadata;
+import org.parchmentmc.feather.metadata.RecordMetadata;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.named.Named;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the types {@link MergeMetadata#adaptTypes(SourceMetadata)} fills in on {@link TestMetadata}, the way the first
+ * Lodestone version filled them in. Names are written as {@code obfuscated=mojang}, with {@code -} for a missing name.
+ */
+class AdaptTypesTest {
+    private static final String WORLD = "net/minecraft/world/";
+
+    @Test
+    void adaptsDescriptorsAndSignatures() {
+        final ClassMetadata entity = find(MergeMetadata.adaptTypes(TestMetadata.create(1)), "a");
+
+        assertEquals("a=" + WORLD + "Entity", name(method(entity, "a", "(Lb;)La;").getOwner()));
+        assertEquals("(Lb;)La;=(L" + WORLD + "Level;)L" + WORLD + "Entity;", name(method(entity, "a", "(Lb;)La;").getDescriptor()));
+        assertEquals("<T:La;>(Lb;)TT;=<T:L" + WORLD + "Entity;>(L" + WORLD + "Level;)TT;", name(method(entity, "a", "(Lb;)La;").getSignature()));
+        assertEquals("(Ld;)V=(L" + WORLD + "Pos;)V", name(method(entity, "lambda$tick$0", "(Ld;)V").getDescriptor()));
+        assertEquals("java/lang/Object=java/lang/Object", name(entity.getSuperName()));
+        assertEquals("Lb;=L" + WORLD + "Level;", name(entity.getFields().iterator().next().getDescriptor()));
+
+        final ClassMetadata data = entity.getInnerClasses().iterator().next();
+        assertEquals("a$a=" + WORLD + "Entity$Data", name(method(data, "a", "()La;").getOwner()));
+        assertEquals("()La;=()L" + WORLD + "Entity;", name(method(data, "a", "()La;").getDescriptor()));
+    }
+
+    @Test
+    void adaptsClassSignaturesAndInterfaces() {
+        final ClassMetadata level = find(MergeMetadata.adaptTypes(TestMetadata.create(1)), "b");
+
+        //As in the first version, the remapped signature of a class replaces its super name, not its signature.
+        assertEquals("Ljava/lang/Object;Lc<La;>;=Ljava/lang/Object;L" + WORLD + "Container<L" + WORLD + "Entity;>;", name(level.getSuperName()));
+        assertEquals("Ljava/lang/Object;Lc<La;>;=-", name(level.getSignature()));
+        assertEquals(Arrays.asList("c=" + WORLD + "Container", "java/lang/Runnable=java/lang/Runnable"),
+                level.getInterfaces().stream().map(AdaptTypesTest::name).collect(Collectors.toList()));
+    }
+
+    @Test
+    void adaptsReferences() {
+        final SourceMetadata adapted = MergeMetadata.adaptTypes(TestMetadata.create(1));
+        final ClassMetadata entity = find(adapted, "a");
+        final ClassMetadata level = find(adapted, "b");
+        final String containerAdd = "c=" + WORLD + "Container a=add (Ljava/lang/Object;)V=(Ljava/lang/Object;)V (TT;)V=(TT;)V";
+
+        final MethodMetadata addEntity = method(level, "a", "(La;)V");
+        assertEquals(containerAdd, reference(addEntity.getParent().orElse(null)));
+        assertEquals(Collections.singletonList(containerAdd), references(addEntity.getOverrides()));
+
+        final BouncingTargetMetadata bouncer = method(level, "a", "(Ljava/lang/Object;)V").getBouncingTarget().orElseThrow(AssertionError::new);
+        assertEquals("b=" + WORLD + "Level a=addEntity (La;)V=(L" + WORLD + "Entity;)V -=-", reference(bouncer.getTarget().orElse(null)));
+        assertEquals(containerAdd, reference(bouncer.getOwner().orElse(null)));
+
+        //References to members outside of the metadata are dropped from the overrides, but kept as the parent.
+        final MethodMetadata toString = method(entity, "toString", "()Ljava/lang/String;");
+        assertEquals("java/lang/Object=- toString=- ()Ljava/lang/String;=- -=-", reference(toString.getParent().orElse(null)));
+        assertEquals(Collections.emptyList(), references(toString.getOverrides()));
+        assertEquals(Collections.emptyList(), references(method(level, "run", "()V").getOverrides()));
+    }
+
+    @Test
+    void adaptsRecords() {
+        final RecordMetadata record = find(MergeMetadata.adaptTypes(TestMetadata.create(1)), "d").getRecords().iterator().next();
+
+        assertEquals("d=" + WORLD + "Pos", name(record.getOwner()));
+        assertEquals("d=" + WORLD + "Pos a=x ()I=()I -=-", reference(record.getGetter()));
+        assertEquals("d=- a=x I=I -=-", reference(record.getField()));
+    }
+
+    @Test
+    void keepsClassOrderWhenAdaptingInParallel() {
+        final SourceMetadata metadata = TestMetadata.create(500);
+        final SourceMetadata adapted = MergeMetadata.adaptTypes(metadata);
+
+        assertEquals(classNames(metadata), classNames(adapted));
+        assertEquals("(Lb499;)La499;=(Lnet/minecraft/world499/Level;)Lnet/minecraft/world499/Entity;",
+                name(method(find(adapted, "a499"), "a", "(Lb499;)La499;").getDescriptor()));
+    }
+
+    private static List<String> classNames(final SourceMetadata metadata) {
+        final List<String> names = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getClasses()) {
+            names.add(name(classMetadata.getName()));
+        }
+        return names;
+    }
+
+    private static ClassMetadata find(final SourceMetadata metadata, final String obfuscatedName) {
+        return metadata.getClasses().stream()
+                .filter(classMetadata -> classMetadata.getName().getObfuscatedName().orElse("").equals(obfuscatedName))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Missing class " + obfuscatedName));
+    }
+
+    private static MethodMetadata method(final ClassMetadata classMetadata, final String obfuscatedName, final String obfuscatedDescriptor) {
+        return classMetadata.getMethods().stream()
+                .filter(method -> method.getName().getObfuscatedName().orElse("").equals(obfuscatedName)
+                        && method.getDescriptor().getObfuscatedName().orElse("").equals(obfuscatedDescriptor))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Missing method " + obfuscatedName + obfuscatedDescriptor));
+    }
+
+    private static List<String> references(final Collection<? extends BaseReference> references) {
+        return references.stream().map(AdaptTypesTest::reference).collect(Collectors.toList());
+    }
+
+    private static String reference(final BaseReference reference) {
+        if (reference == null)
+            return null;
+        return name(reference.getOwner()) + ' ' + name(reference.getName()) + ' ' + name(reference.getDescriptor()) + ' ' + name(reference.getSignature());
+    }
+
+    private static String name(final Named named) {
+        return named.getObfuscatedName().orElse("-") + '=' + named.getMojangName().orElse("-");
+    }
+}
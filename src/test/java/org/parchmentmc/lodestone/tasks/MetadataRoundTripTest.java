@@ -0,0 +1,88 @@
+package org.parchmentmc.lodestone.tasks;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.metadata.SourceMetadataBuilder;
+import org.parchmentmc.feather.util.SimpleVersion;
+import org.parchmentmc.lodestone.util.BinaryMetadataWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Writes metadata in every {@link MetadataFormat}, compressed and not, and checks that reading it back gives the same metadata.
+ */
+class MetadataRoundTripTest {
+    private final Gson gson = ExtractMetadataTask.createMetadataGson();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsBackJson() throws IOException {
+        final SourceMetadata metadata = TestMetadata.create(3);
+
+        assertEquals(toJson(metadata), toJson(readBack(writeJson(metadata, true, false))));
+        assertEquals(toJson(metadata), toJson(readBack(writeJson(metadata, false, false))));
+        assertEquals(toJson(metadata), toJson(readBack(writeJson(metadata, true, true))));
+        assertEquals(toJson(metadata), toJson(readBack(writeJson(metadata, false, true))));
+    }
+
+    @Test
+    void readsBackBinary() throws IOException {
+        final SourceMetadata metadata = TestMetadata.create(3);
+
+        assertEquals(toJson(metadata), toJson(readBack(writeBinary(metadata, false))));
+        assertEquals(toJson(metadata), toJson(readBack(writeBinary(metadata, true))));
+    }
+
+    @Test
+    void binaryMatchesJson() throws IOException {
+        final SourceMetadata metadata = TestMetadata.create(1);
+
+        assertEquals(toJson(readBack(writeJson(metadata, false, true))), toJson(readBack(writeBinary(metadata, true))));
+    }
+
+    @Test
+    void keepsMissingMinecraftVersionInBinary() throws IOException {
+        final SourceMetadata metadata = SourceMetadataBuilder.create()
+                .withSpecVersion(SimpleVersion.of("1.0.0"))
+                .build();
+
+        final SourceMetadata readBack = readBack(writeBinary(metadata, false));
+        assertNull(readBack.getMinecraftVersion());
+        assertEquals(toJson(metadata), toJson(readBack));
+    }
+
+    private File writeJson(final SourceMetadata metadata, final boolean pretty, final boolean compress) throws IOException {
+        final File output = tempDir.resolve("metadata-" + pretty + "-" + compress + ".json").toFile();
+        try (JsonWriter writer = ExtractMetadataTask.createMetadataWriter(gson, output, pretty, compress)) {
+            gson.toJson(metadata, SourceMetadata.class, writer);
+        }
+        return output;
+    }
+
+    private File writeBinary(final SourceMetadata metadata, final boolean compress) throws IOException {
+        final File output = tempDir.resolve("metadata-" + compress + ".bin").toFile();
+        try (OutputStream stream = ExtractMetadataTask.openMetadataOutput(output, compress)) {
+            BinaryMetadataWriter.write(metadata, stream);
+        }
+        return output;
+    }
+
+    private SourceMetadata readBack(final File input) throws IOException {
+        return ExtractMetadataTask.readMetadata(gson, input);
+    }
+
+    private String toJson(final SourceMetadata metadata) {
+        return gson.toJson(metadata, SourceMetadata.class);
+    }
+}
@@ -0,0 +1,187 @@
+package org.parchmentmc.lodestone.tasks;
+
+import org.parchmentmc.feather.metadata.BouncingTargetMetadataBuilder;
+import org.parchmentmc.feather.metadata.ClassMetadataBuilder;
+import org.parchmentmc.feather.metadata.FieldMetadataBuilder;
+import org.parchmentmc.feather.metadata.MethodMetadataBuilder;
+import org.parchmentmc.feather.metadata.RecordMetadataBuilder;
+import org.parchmentmc.feather.metadata.Reference;
+import org.parchmentmc.feather.metadata.ReferenceBuilder;
+import org.parchmentmc.feather.metadata.SourceMetadata;
+import org.parchmentmc.feather.metadata.SourceMetadataBuilder;
+import org.parchmentmc.feather.named.Named;
+import org.parchmentmc.feather.named.NamedBuilder;
+import org.parchmentmc.feather.util.SimpleVersion;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+/**
+ * Metadata shaped like the output of merging the metadata of the game jar with the Proguard mappings: classes,
+ * members and field descriptors have obfuscated and Mojang names, while method descriptors, signatures and references
+ * only have obfuscated ones.
+ */
+final class TestMetadata {
+    private TestMetadata() {
+    }
+
+    /**
+     * @param copies How many times the classes are repeated, each time under different names.
+     */
+    static SourceMetadata create(final int copies) {
+        final SourceMetadataBuilder builder = SourceMetadataBuilder.create()
+                .withSpecVersion(SimpleVersion.of("1.0.0"))
+                .withMinecraftVersion("1.20.1");
+        for (int copy = 0; copy < copies; copy++) {
+            addClasses(builder, copy == 0 ? "" : Integer.toString(copy));
+        }
+        return builder.build();
+    }
+
+    private static void addClasses(final SourceMetadataBuilder builder, final String suffix) {
+        final String entity = "a" + suffix;
+        final String level = "b" + suffix;
+        final String container = "c" + suffix;
+        final String pos = "d" + suffix;
+        final String mojPackage = "net/minecraft/world" + suffix + "/";
+
+        builder.addClass(ClassMetadataBuilder.create()
+                .withName(named(entity, mojPackage + "Entity"))
+                .withOwner(NamedBuilder.create().build())
+                .withSuperName(named("java/lang/Object", null))
+                .withSignature(NamedBuilder.create().build())
+                .withSecuritySpecifications(Modifier.PUBLIC)
+                .withInterfaces(new LinkedHashSet<>())
+                .withFields(set(FieldMetadataBuilder.create()
+                        .withOwner(named(entity, null))
+                        .withName(named("a", "level"))
+                        .withDescriptor(named("L" + level + ";", "L" + mojPackage + "Level;"))
+                        .withSignature(NamedBuilder.create().build())
+                        .withSecuritySpecification(Modifier.PRIVATE)
+                        .build()))
+                .withMethods(set(
+                        method(entity, "a", "copy", "(L" + level + ";)L" + entity + ";", "<T:L" + entity + ";>(L" + level + ";)TT;", Modifier.PUBLIC)
+                                .build(),
+                        method(entity, "b", "tick", "()V", null, Modifier.PUBLIC)
+                                .build(),
+                        method(entity, "toString", "toString", "()Ljava/lang/String;", null, Modifier.PUBLIC)
+                                .withParent(reference("java/lang/Object", "toString", "()Ljava/lang/String;"))
+                                .withOverrides(set(reference("java/lang/Object", "toString", "()Ljava/lang/String;")))
+                                .build(),
+                        method(entity, "lambda$tick$0", "lambda$tick$0", "(L" + pos + ";)V", null, Modifier.PRIVATE | Modifier.STATIC)
+                                .withLambda(true)
+                                .build()))
+                .withRecords(new LinkedHashSet<>())
+                .withInnerClasses(set(ClassMetadataBuilder.create()
+                        .withName(named(entity + "$a", mojPackage + "Entity$Data"))
+                        .withOwner(named(entity, null))
+                        .withSuperName(named("java/lang/Object", null))
+                        .withSignature(NamedBuilder.create().build())
+                        .withSecuritySpecifications(Modifier.PUBLIC | Modifier.STATIC)
+                        .withInterfaces(new LinkedHashSet<>())
+                        .withFields(new LinkedHashSet<>())
+                        .withMethods(set(method(entity + "$a", "a", "owner", "()L" + entity + ";", null, Modifier.PUBLIC).build()))
+                        .withRecords(new LinkedHashSet<>())
+                        .withInnerClasses(new LinkedHashSet<>())
+                        .build()))
+                .build());
+
+        builder.addClass(ClassMetadataBuilder.create()
+                .withName(named(level, mojPackage + "Level"))
+                .withOwner(NamedBuilder.create().build())
+                .withSuperName(named("java/lang/Object", null))
+                .withSignature(named("Ljava/lang/Object;L" + container + "<L" + entity + ";>;", null))
+                .withSecuritySpecifications(Modifier.PUBLIC)
+                .withInterfaces(set(named(container, null), named("java/lang/Runnable", "java/lang/Runnable")))
+                .withFields(new LinkedHashSet<>())
+                .withMethods(set(
+                        method(level, "a", "addEntity", "(L" + entity + ";)V", null, Modifier.PUBLIC)
+                                .withParent(reference(container, "a", "(Ljava/lang/Object;)V"))
+                                .withOverrides(set(reference(container, "a", "(Ljava/lang/Object;)V")))
+                                .build(),
+                        method(level, "a", "addEntity", "(Ljava/lang/Object;)V", null, Modifier.PUBLIC | 0x1040)
+                                .withParent(reference(container, "a", "(Ljava/lang/Object;)V"))
+                                .withOverrides(set(reference(container, "a", "(Ljava/lang/Object;)V")))
+                                .withBouncingTarget(BouncingTargetMetadataBuilder.create()
+                                        .withTarget(reference(level, "a", "(L" + entity + ";)V"))
+                                        .withOwner(reference(container, "a", "(Ljava/lang/Object;)V"))
+                                        .build())
+                                .build(),
+                        method(level, "run", "run", "()V", null, Modifier.PUBLIC)
+                                .withOverrides(set(reference("java/lang/Runnable", "run", "()V")))
+                                .build()))
+                .withRecords(new LinkedHashSet<>())
+                .withInnerClasses(new LinkedHashSet<>())
+                .build());
+
+        builder.addClass(ClassMetadataBuilder.create()
+                .withName(named(container, mojPackage + "Container"))
+                .withOwner(NamedBuilder.create().build())
+                .withSuperName(named("java/lang/Object", null))
+                .withSignature(named("<T:Ljava/lang/Object;>Ljava/lang/Object;", null))
+                .withSecuritySpecifications(Modifier.PUBLIC | Modifier.INTERFACE | Modifier.ABSTRACT)
+                .withInterfaces(new LinkedHashSet<>())
+                .withFields(new LinkedHashSet<>())
+                .withMethods(set(method(container, "a", "add", "(Ljava/lang/Object;)V", "(TT;)V", Modifier.PUBLIC | Modifier.ABSTRACT).build()))
+                .withRecords(new LinkedHashSet<>())
+                .withInnerClasses(new LinkedHashSet<>())
+                .build());
+
+        builder.addClass(ClassMetadataBuilder.create()
+                .withName(named(pos, mojPackage + "Pos"))
+                .withOwner(NamedBuilder.create().build())
+                .withSuperName(named("java/lang/Record", null))
+                .withSignature(NamedBuilder.create().build())
+                .withSecuritySpecifications(Modifier.PUBLIC | Modifier.FINAL)
+                .withIsRecord(true)
+                .withInterfaces(new LinkedHashSet<>())
+                .withFields(set(FieldMetadataBuilder.create()
+                        .withOwner(named(pos, null))
+                        .withName(named("a", "x"))
+                        .withDescriptor(named("I", "I"))
+                        .withSignature(NamedBuilder.create().build())
+                        .withSecuritySpecification(Modifier.PRIVATE | Modifier.FINAL)
+                        .build()))
+                .withMethods(set(method(pos, "a", "x", "()I", null, Modifier.PUBLIC).build()))
+                .withRecords(set(RecordMetadataBuilder.create()
+                        .withOwner(named(pos, null))
+                        .withField(reference(pos, "a", "I"))
+                        .withGetter(reference(pos, "a", "()I"))
+                        .build()))
+                .withInnerClasses(new LinkedHashSet<>())
+                .build());
+    }
+
+    private static MethodMetadataBuilder method(final String owner, final String obfuscatedName, final String mojangName,
+                                                final String descriptor, final String signature, final int access) {
+        return MethodMetadataBuilder.create()
+                .withOwner(named(owner, null))
+                .withName(named(obfuscatedName, mojangName))
+                .withDescriptor(named(descriptor, null))
+                .withSignature(signature == null ? NamedBuilder.create().build() : named(signature, null))
+                .withSecuritySpecification(access)
+                .withOverrides(new LinkedHashSet<>());
+    }
+
+    private static Reference reference(final String owner, final String name, final String descriptor) {
+        return ReferenceBuilder.create()
+                .withOwner(named(owner, null))
+                .withName(named(name, null))
+                .withDescriptor(named(descriptor, null))
+                .withSignature(NamedBuilder.create().build())
+                .build();
+    }
+
+    static Named named(final String obfuscated, final String mojang) {
+        final NamedBuilder builder = NamedBuilder.create().withObfuscated(obfuscated);
+        if (mojang != null)
+            builder.withMojang(mojang);
+        return builder.build();
+    }
+
+    @SafeVarargs
+    private static <T> LinkedHashSet<T> set(final T... values) {
+        return new LinkedHashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,262 @@
+package org.parchmentmc.lodestone.util;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the descriptors and signatures remapped by {@link ASMRemapper} with the ones remapped by ASM's own
+ * {@link Remapper}, for some classes of the JDK.
+ */
+class ASMRemapperTest {
+    private static final String[] JDK_CLASSES = {
+            "java/lang/Class", "java/lang/Enum", "java/util/Comparator", "java/util/EnumMap", "java/util/HashMap",
+            "java/util/Map", "java/util/Optional", "java/util/concurrent/CompletableFuture",
+            "java/util/concurrent/ConcurrentHashMap", "java/util/stream/Collectors", "java/util/stream/Stream"
+    };
+    //Signatures which javac rarely writes: inner class types of generic classes, type variables named like a class
+    //type, interface bounds only, wildcards and exceptions.
+    private static final String[] SIGNATURES = {
+            "<T:Ljava/lang/Object;>Ljava/lang/Object;",
+            "<L:Ljava/lang/Object;T:TL;>(TL;LT;)TL;",
+            "<T::Ljava/lang/Comparable<-TT;>;X:Ljava/lang/Exception;>(Ljava/util/List<+TT;>;[TT;)V^Ljava/io/IOException;^TX;",
+            "Lgame/Outer<TT;>.Inner<Ljava/lang/String;>.Deep;Ljava/util/Map<*[Lgame/Outer$Inner;>;",
+            "<T:Lgame/Outer.Inner;>Lgame/Outer.Inner.Deep<TT;>;"
+    };
+    private static final String[] TYPE_SIGNATURES = {
+            "I", "[TT;", "TL;", "Lgame/Outer<TT;>.Inner<Ljava/lang/String;>.Deep;", "[[Lgame/Outer.Inner<*>;"
+    };
+
+    private final Set<String> methodDescriptors = new TreeSet<>();
+    private final Set<String> signatures = new TreeSet<>();
+    private final Set<String> typeSignatures = new TreeSet<>();
+    private final Set<String> classNames = new TreeSet<>();
+
+    @Test
+    void remapsLikeAsm() throws IOException {
+        collect();
+        final Map<String, String> renames = createRenames();
+        final Remapper reference = new SimpleRemapper(renames);
+        final ASMRemapper remapper = new ASMRemapper(renames, Collections.emptyMap());
+
+        //The second round takes everything from the cache.
+        for (int round = 0; round < 2; round++) {
+            for (String descriptor : methodDescriptors) {
+                assertEquals(reference.mapMethodDesc(descriptor), remapper.mapMethodDesc(descriptor), descriptor);
+            }
+            for (String signature : signatures) {
+                assertEquals(reference.mapSignature(signature, false), remapper.mapSignature(signature, false), signature);
+            }
+            for (String signature : typeSignatures) {
+                assertEquals(reference.mapSignature(signature, true), remapper.mapSignature(signature, true), signature);
+            }
+        }
+    }
+
+    @Test
+    void countsCacheHitsAndMisses() throws IOException {
+        collect();
+        final ASMRemapper remapper = new ASMRemapper(createRenames(), Collections.emptyMap());
+
+        for (int round = 0; round < 3; round++) {
+            methodDescriptors.forEach(remapper::mapMethodDesc);
+            signatures.forEach(signature -> remapper.mapSignature(signature, false));
+        }
+
+        final int distinct = methodDescriptors.size() + signatures.size();
+        assertEquals(distinct, remapper.getCacheMisses());
+        assertEquals(2L * distinct, remapper.getCacheHits());
+    }
+
+    @Test
+    void keepsUnchangedDescriptorsAndSignatures() throws IOException {
+        collect();
+        final ASMRemapper remapper = new ASMRemapper(Collections.emptyMap(), Collections.emptyMap());
+
+        for (String descriptor : methodDescriptors) {
+            assertSame(descriptor, remapper.mapMethodDesc(descriptor));
+        }
+        for (String signature : signatures) {
+            assertSame(signature, remapper.mapSignature(signature, false));
+        }
+    }
+
+    /**
+     * A rewrite which changes nothing should not allocate anything, not even for the class names it looks up.
+     */
+    @Test
+    void rewritesWithoutAllocatingNames() throws IOException {
+        final com.sun.management.ThreadMXBean threads = threadBean();
+        assumeTrue(threads != null && threads.isThreadAllocatedMemoryEnabled(), "Thread allocation measurement is unavailable");
+
+        collect();
+        final Map<String, String> renames = new HashMap<>();
+        classNames.forEach(name -> renames.put("renamed/" + name, name));
+        final ClassNameTable classRenames = new ClassNameTable(renames);
+        final SignatureRewriter rewriter = new SignatureRewriter();
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            final long start = threads.getCurrentThreadAllocatedBytes();
+            for (String descriptor : methodDescriptors) {
+                rewriter.rewriteMethodDescriptor(classRenames, descriptor);
+            }
+            for (String signature : signatures) {
+                rewriter.rewriteSignature(classRenames, signature, false);
+            }
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - start);
+        }
+
+        //Leaves some room for the allocation counters themselves.
+        assertTrue(allocated < 1024, "Rewriting unchanged descriptors and signatures allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Reads the descriptors and signatures of the JDK classes, along with the names of the classes in them.
+     */
+    private void collect() throws IOException {
+        for (String name : JDK_CLASSES) {
+            try (InputStream input = ClassLoader.getSystemResourceAsStream(name + ".class")) {
+                collect(new ClassReader(input));
+            }
+        }
+        for (String signature : SIGNATURES) {
+            signatures.add(signature);
+            new SignatureReader(signature).accept(new ClassNameCollector());
+        }
+        for (String signature : TYPE_SIGNATURES) {
+            typeSignatures.add(signature);
+            new SignatureReader(signature).acceptType(new ClassNameCollector());
+        }
+    }
+
+    private void collect(final ClassReader reader) {
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                addSignature(signature, false);
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                addSignature(signature, true);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                methodDescriptors.add(descriptor);
+                for (Type type : Type.getArgumentTypes(descriptor)) {
+                    addClassName(type);
+                }
+                addClassName(Type.getReturnType(descriptor));
+                addSignature(signature, false);
+                return null;
+            }
+        }, ClassReader.SKIP_CODE);
+    }
+
+    private void addSignature(final String signature, final boolean typeSignature) {
+        if (signature == null)
+            return;
+
+        if (typeSignature) {
+            typeSignatures.add(signature);
+            new SignatureReader(signature).acceptType(new ClassNameCollector());
+        } else {
+            signatures.add(signature);
+            new SignatureReader(signature).accept(new ClassNameCollector());
+        }
+    }
+
+    private void addClassName(final Type type) {
+        final Type elementType = type.getSort() == Type.ARRAY ? type.getElementType() : type;
+        if (elementType.getSort() == Type.OBJECT)
+            classNames.add(elementType.getInternalName());
+    }
+
+    /**
+     * Renames the collected classes in a few different ways, some to the same name and some not at all. Inner classes
+     * are renamed both with and without the new name of their outer class in front, as ASM takes their simple name
+     * from different places in each case.
+     */
+    private Map<String, String> createRenames() {
+        final Map<String, String> renames = new HashMap<>();
+        int index = 0;
+        for (String name : classNames) {
+            switch (index++ % 4) {
+                case 0:
+                    renames.put(name, "renamed/C" + index);
+                    break;
+                case 1:
+                    renames.put(name, name + "Renamed");
+                    break;
+                case 2:
+                    renames.put(name, name);
+                    break;
+                default:
+                    break;
+            }
+        }
+        renames.put("game/Outer", "renamed/Outer");
+        renames.put("game/Outer$Inner", "renamed/Outer$Inside");
+        renames.put("game/Outer$Inner$Deep", "other/Deeper");
+        return renames;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private class ClassNameCollector extends SignatureVisitor {
+        private final Deque<String> names = new ArrayDeque<>();
+
+        ClassNameCollector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            names.push(name);
+            classNames.add(name);
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            final String className = names.pop() + '$' + name;
+            names.push(className);
+            classNames.add(className);
+        }
+
+        @Override
+        public void visitEnd() {
+            names.pop();
+        }
+    }
+}
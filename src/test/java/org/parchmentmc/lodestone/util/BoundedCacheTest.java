@@ -0,0 +1,39 @@
+package org.parchmentmc.lodestone.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+    @Test
+    void staysBounded() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(4);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+
+        assertTrue(cache.size() <= 8, "Cache holds " + cache.size() + " entries");
+        assertEquals("99", cache.get(99));
+        assertNull(cache.get(0));
+    }
+
+    @Test
+    void keepsRecentlyUsedEntries() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(4);
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+
+        //All four are in the old generation now, only the one used since survives the next rotation.
+        assertEquals("0", cache.get(0));
+        for (int i = 4; i < 7; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+
+        assertEquals("0", cache.get(0));
+        assertNull(cache.get(1));
+        assertEquals("6", cache.get(6));
+    }
+}
@@ -0,0 +1,85 @@
+package org.parchmentmc.lodestone.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MemberKeyTest {
+    private static final int MEMBERS = 20_000;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void equalsOnAllParts() {
+        final MemberKey key = new MemberKey("a", "b", "()V");
+
+        assertEquals(key, new MemberKey("a", "b", "()V"));
+        assertEquals(key.hashCode(), new MemberKey("a", "b", "()V").hashCode());
+        assertNotEquals(key, new MemberKey("ab", "", "()V"));
+        assertNotEquals(key, new MemberKey("a", "c", "()V"));
+        assertNotEquals(key, new MemberKey("a", "b", "(I)V"));
+    }
+
+    /**
+     * Measures the bytes allocated per method name lookup of {@link ASMRemapper}, against the same lookups with keys
+     * joined by {@link String#format(String, Object...)} as they were before. A lookup should allocate the key and
+     * nothing else.
+     */
+    @Test
+    void lookupsOnlyAllocateTheKey() {
+        final com.sun.management.ThreadMXBean threads = threadBean();
+        assumeTrue(threads != null && threads.isThreadAllocatedMemoryEnabled(), "Thread allocation measurement is unavailable");
+
+        final String[] owners = new String[MEMBERS];
+        final String[] names = new String[MEMBERS];
+        final String[] descriptors = new String[MEMBERS];
+        final Map<MemberKey, String> keyRenames = new HashMap<>();
+        final Map<String, String> formattedRenames = new HashMap<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            owners[i] = "net/minecraft/world/level/Class" + (i / 16);
+            names[i] = "m_" + i + "_";
+            descriptors[i] = "(Lnet/minecraft/world/entity/Entity;I)Lnet/minecraft/world/level/Class" + (i % 64) + ";";
+            keyRenames.put(new MemberKey(owners[i], names[i], descriptors[i]), "method" + i);
+            formattedRenames.put(String.format("%s/%s%s", owners[i], names[i], descriptors[i]), "method" + i);
+        }
+        final ASMRemapper remapper = new ASMRemapper(new HashMap<>(), keyRenames);
+
+        long formattedBytes = Long.MAX_VALUE;
+        long keyBytes = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEMBERS; i++) {
+                if (formattedRenames.get(String.format("%s/%s%s", owners[i], names[i], descriptors[i])) != null)
+                    found++;
+            }
+            formattedBytes = Math.min(formattedBytes, threads.getCurrentThreadAllocatedBytes() - start);
+
+            start = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEMBERS; i++) {
+                if (remapper.mapMethodName(owners[i], names[i], descriptors[i]) != names[i])
+                    found++;
+            }
+            keyBytes = Math.min(keyBytes, threads.getCurrentThreadAllocatedBytes() - start);
+        }
+
+        assertEquals(2L * ROUNDS * MEMBERS, found);
+        final long formattedPerLookup = formattedBytes / MEMBERS;
+        final long keyPerLookup = keyBytes / MEMBERS;
+        assertTrue(keyPerLookup <= 64, "MemberKey lookups allocated " + keyPerLookup + " bytes each");
+        assertTrue(keyPerLookup * 4 < formattedPerLookup,
+                "MemberKey lookups allocated " + keyPerLookup + " bytes each, formatted ones " + formattedPerLookup);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+}